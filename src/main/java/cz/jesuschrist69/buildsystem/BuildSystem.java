@@ -2,100 +2,194 @@ package cz.jesuschrist69.buildsystem;
 
 import com.grinderwolf.swm.api.SlimePlugin;
 import com.grinderwolf.swm.api.loaders.SlimeLoader;
+import cz.jesuschrist69.buildsystem.cache.CacheRegistry;
 import cz.jesuschrist69.buildsystem.cache.type.FileCache;
+import cz.jesuschrist69.buildsystem.cache.type.MenuCache;
+import cz.jesuschrist69.buildsystem.cache.type.WorldIconCache;
 import cz.jesuschrist69.buildsystem.component.BuildSystemCommandExecutor;
 import cz.jesuschrist69.buildsystem.component.BuildSystemListener;
-import cz.jesuschrist69.buildsystem.component.WorldType;
+import cz.jesuschrist69.buildsystem.config.SettingsConfig;
 import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.data.WorldQuery;
+import cz.jesuschrist69.buildsystem.gui.ClickLimiter;
+import cz.jesuschrist69.buildsystem.gui.GuiItem;
+import cz.jesuschrist69.buildsystem.gui.WorldViewRegistry;
+import cz.jesuschrist69.buildsystem.manager.ConfigManager;
+import cz.jesuschrist69.buildsystem.manager.MessageManager;
 import cz.jesuschrist69.buildsystem.manager.RoleManager;
+import cz.jesuschrist69.buildsystem.manager.WorldCatalog;
 import cz.jesuschrist69.buildsystem.manager.WorldManager;
+import cz.jesuschrist69.buildsystem.manager.WorldSync;
+import cz.jesuschrist69.buildsystem.mysql.H2Storage;
 import cz.jesuschrist69.buildsystem.mysql.MySQL;
 import cz.jesuschrist69.buildsystem.mysql.MysqlCredentials;
-import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import cz.jesuschrist69.buildsystem.mysql.Queries;
+import cz.jesuschrist69.buildsystem.mysql.Storage;
+import cz.jesuschrist69.buildsystem.mysql.migration.Migration;
+import cz.jesuschrist69.buildsystem.mysql.migration.Migrations;
+import cz.jesuschrist69.buildsystem.mysql.migration.Migrator;
 import cz.jesuschrist69.buildsystem.utils.FileUtils;
 import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.reflections.Reflections;
 
+import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.sql.ResultSet;
-import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.logging.Logger;
 
 public final class BuildSystem extends JavaPlugin {
 
-    private MySQL mySQL;
-    private FileCache fileCache;
+    private Storage storage;
+    private String slimeLoader;
+    private ConfigManager configManager;
     private RoleManager roleManager;
+    private WorldIconCache worldIconCache;
+    private MessageManager messageManager;
+    private MenuCache menuCache;
+    private ClickLimiter clickLimiter;
+    private WorldViewRegistry worldViewRegistry;
+    private WorldCatalog worldCatalog;
+    private WorldSync worldSync;
 
     @Override
     public void onEnable() {
         // Plugin startup logic
-        fileCache = new FileCache();
-        fileCache.init(this);
+        configManager = new ConfigManager(this);
+        configManager.load();
+        messageManager = new MessageManager(this);
+        worldIconCache = CacheRegistry.register("world-icons", new WorldIconCache());
+        menuCache = CacheRegistry.register("menus", new MenuCache());
+        CacheRegistry.register("skulls", GuiItem.getSkullCache());
+        clickLimiter = new ClickLimiter(this);
+        worldViewRegistry = new WorldViewRegistry(this);
+        WorldData.addChangeListener(worldViewRegistry::worldChanged);
+        worldCatalog = new WorldCatalog(this, configManager.getSnapshot().getSettings().isTieredWorlds());
 
         Logger logger = getLogger();
         PluginManager pm = Bukkit.getPluginManager();
 
-        Optional<YamlConfiguration> credsFile = fileCache.get("credentials.yml");
+        Optional<YamlConfiguration> credsFile = getFileCache().get("credentials.yml");
         credsFile.ifPresent(creds -> {
+            String type = creds.getString("DATABASE.TYPE", "mysql").toLowerCase(Locale.ROOT);
+            slimeLoader = creds.getString("DATABASE.OPTIONAL.SLIME-LOADER", type.equals("h2") ? "file" : "mysql");
             try {
-                mySQL = new MySQL(new MysqlCredentials(
-                        creds.getString("DATABASE.REQUIRED.HOST"),
-                        creds.getInt("DATABASE.REQUIRED.PORT"),
-                        creds.getString("DATABASE.REQUIRED.USERNAME"),
-                        creds.getString("DATABASE.REQUIRED.PASSWORD"),
-                        creds.getString("DATABASE.REQUIRED.DATABASE"),
-                        creds.getString("DATABASE.OPTIONAL.TABLE-PREFIX"),
-                        creds.getBoolean("DATABASE.OPTIONAL.AUTO-RECONNECT")
-                ));
+                if (type.equals("h2")) {
+                    storage = new H2Storage(new File(getDataFolder(), creds.getString("DATABASE.H2.FILE", "database")),
+                            creds.getString("DATABASE.OPTIONAL.TABLE-PREFIX"));
+                } else {
+                    storage = new MySQL(new MysqlCredentials(
+                            creds.getString("DATABASE.REQUIRED.HOST"),
+                            creds.getInt("DATABASE.REQUIRED.PORT"),
+                            creds.getString("DATABASE.REQUIRED.USERNAME"),
+                            creds.getString("DATABASE.REQUIRED.PASSWORD"),
+                            creds.getString("DATABASE.REQUIRED.DATABASE"),
+                            creds.getString("DATABASE.OPTIONAL.TABLE-PREFIX"),
+                            creds.getBoolean("DATABASE.OPTIONAL.AUTO-RECONNECT"),
+                            creds.getInt("DATABASE.OPTIONAL.FETCH-SIZE", 500)
+                    ));
+                }
+                storage.getQueryStats().setSlowQueryLog(getLogger(), creds.getInt("DATABASE.OPTIONAL.SLOW-QUERY-MS", 100));
             } catch (Exception e) {
-                getLogger().warning("Failed to connect to MySQL database. " +
+                getLogger().warning("Failed to connect to " + type + " database. " +
                         "Please fill all required fields or check if you filled them with correct values. " +
                         "Plugin will now disable as it requires database connection.");
                 pm.disablePlugin(this);
             }
         });
 
-        if (mySQL == null || !mySQL.isConnected()) {
-            logger.warning("Failed to connect to mysql database, disabling plugin");
+        if (storage == null || !storage.isConnected()) {
+            logger.warning("Failed to connect to database, disabling plugin");
             pm.disablePlugin(this);
             return;
         }
 
+        try {
+            for (Migration migration : new Migrator(storage, Migrations.ALL).migrate()) {
+                logger.info("Applied database migration " + migration.getVersion() + ": " + migration.getDescription());
+            }
+        } catch (Exception e) {
+            logger.severe("Failed to migrate database schema, disabling plugin");
+            e.printStackTrace();
+            pm.disablePlugin(this);
+            return;
+        }
+
+        SettingsConfig settings = configManager.getSnapshot().getSettings();
+        worldSync = new WorldSync(this, settings.getNodeId().isEmpty() ? UUID.randomUUID().toString() : settings.getNodeId());
+        if (settings.isSyncEnabled()) {
+            worldSync.start(settings.getSyncInterval() * 20L);
+        }
+
         SlimePlugin slimePlugin = (SlimePlugin) pm.getPlugin("SlimeWorldManager");
         assert slimePlugin != null : "SlimeWorldManager is missing";
-        SlimeLoader loader = slimePlugin.getLoader("mysql");
+        SlimeLoader loader = slimePlugin.getLoader(slimeLoader);
+
+        Set<String> loadedWorlds = new HashSet<>();
+        for (World world : Bukkit.getWorlds()) {
+            loadedWorlds.add(world.getName());
+        }
+        List<String> onlinePlayers = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            worldCatalog.playerJoined(player.getName());
+            onlinePlayers.add(player.getName());
+        }
 
         Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
-            try (ResultSet results = mySQL.getResult(new SqlBuilder.Select("%mysql-table-prefix%" + "world_data")
-                    .columns("*").build())) {
-                List<String> worlds = loader.listWorlds();
-                while (results.next()) {
-                    String name = results.getString("name");
-                    boolean hidden = results.getInt("hidden") == 1;
-                    boolean locked = results.getInt("locked") == 1;
-                    String owner = results.getString("owner");
-                    String worldType = results.getString("world_type");
-                    Timestamp createdAt = results.getTimestamp("created_at");
-                    WorldData data = new WorldData(owner, name, WorldType.valueOf(worldType), createdAt, hidden, locked, Bukkit.getWorld(name) != null);
-                }
-                for (WorldData wd : WorldData.getWORLDS()) {
-                    if (!worlds.contains(wd.getName())) {
-                        mySQL.execute(new SqlBuilder.Delete("%mysql-table-prefix%" + "world_data")
-                                .where("name = '" + wd.getName() + "'")
-                                .build());
+            try {
+                if (worldCatalog.isTiered()) {
+                    // Only hot worlds are loaded, the rest is read page by page. Removing rows of worlds missing in
+                    // the loader needs every row, so it is not done in tiered mode.
+                    worldCatalog.promote(WorldQuery.create().withNames(loadedWorlds).build());
+                } else {
+                    // registered at once after reading, so the connection is not held while the list is copied
+                    WorldData.promoteAll(storage.query(Queries.SELECT_WORLDS, WorldCatalog::read));
+                    Set<String> worlds = new HashSet<>(loader.listWorlds());
+                    List<WorldData> orphans = new ArrayList<>();
+                    List<String> orphanNames = new ArrayList<>();
+                    List<Object[]> orphanRows = new ArrayList<>();
+                    for (WorldData wd : WorldData.getWORLDS()) {
+                        if (!worlds.contains(wd.getName())) {
+                            orphans.add(wd);
+                            orphanNames.add(wd.getName());
+                            orphanRows.add(new Object[]{wd.getName()});
+                        }
                     }
+                    if (!orphans.isEmpty()) {
+                        // recorded, so other servers drop the worlds as well
+                        storage.transaction(tx -> {
+                            tx.executeBatch(Queries.DELETE_WORLD, orphanRows);
+                            worldSync.recordAll(tx, orphanNames, WorldSync.Change.DELETED);
+                        });
+                        orphans.forEach(WorldData::demote);
+                    }
+                }
+
+                // Resolve owner heads now, so the first world list does not have to. Online players first, then owners
+                // of the most recently created worlds, as only part of them fits into the cache.
+                Set<String> owners = new LinkedHashSet<>(onlinePlayers);
+                List<WorldData> recent = new ArrayList<>(WorldData.getWORLDS());
+                recent.sort(Comparator.comparing(WorldData::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+                for (WorldData wd : recent) {
+                    owners.add(wd.getOwner());
                 }
+                GuiItem.getSkullCache().warm(owners);
             } catch (Exception e) {
                 logger.severe("Failed to load worlds!");
                 e.printStackTrace();
@@ -140,30 +234,123 @@ public final class BuildSystem extends JavaPlugin {
         roleManager = new RoleManager(this);
 
         WorldManager.startChecker(this);
+        worldCatalog.start();
+
+        if (configManager.getSnapshot().getSettings().isWatchFiles()) {
+            configManager.startWatching();
+        }
     }
 
     @Override
     public void onDisable() {
         // Plugin shutdown logic
-        mySQL.disconnect();
+        configManager.stopWatching();
+        worldCatalog.stop();
+        if (worldSync != null) {
+            worldSync.stop();
+        }
+        if (storage != null) {
+            storage.disconnect();
+        }
     }
 
     /**
-     * This method returns the file cache object.
+     * This method returns the file cache object of the current configuration.
      *
      * @return The fileCache object.
      */
     public FileCache getFileCache() {
-        return fileCache;
+        return configManager.getSnapshot().getFiles();
+    }
+
+    /**
+     * This method returns the configuration manager.
+     *
+     * @return The configManager object.
+     */
+    public ConfigManager getConfigManager() {
+        return configManager;
+    }
+
+    /**
+     * This method returns the storage object
+     *
+     * @return The storage object.
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * This method returns the name of the SlimeWorldManager loader worlds are stored with.
+     *
+     * @return The slimeLoader name.
+     */
+    public String getSlimeLoader() {
+        return slimeLoader;
+    }
+
+    /**
+     * This method returns the manager of compiled lang.yml messages.
+     *
+     * @return The messageManager object.
+     */
+    public MessageManager getMessageManager() {
+        return messageManager;
+    }
+
+    /**
+     * This method returns the cache of world icons shown in world list.
+     *
+     * @return The worldIconCache object.
+     */
+    public WorldIconCache getWorldIconCache() {
+        return worldIconCache;
+    }
+
+    /**
+     * This method returns the cache of prebuilt menu layouts.
+     *
+     * @return The menuCache object.
+     */
+    public MenuCache getMenuCache() {
+        return menuCache;
+    }
+
+    /**
+     * This method returns the limiter of gui clicks.
+     *
+     * @return The clickLimiter object.
+     */
+    public ClickLimiter getClickLimiter() {
+        return clickLimiter;
+    }
+
+    /**
+     * This method returns the registry of worlds shown in open guis.
+     *
+     * @return The worldViewRegistry object.
+     */
+    public WorldViewRegistry getWorldViewRegistry() {
+        return worldViewRegistry;
+    }
+
+    /**
+     * This method returns the worldCatalog object.
+     *
+     * @return The worldCatalog object.
+     */
+    public WorldCatalog getWorldCatalog() {
+        return worldCatalog;
     }
 
     /**
-     * This method returns the MySQL object
+     * This method returns the worldSync object.
      *
-     * @return The MySQL object.
+     * @return The worldSync object.
      */
-    public MySQL getMySQL() {
-        return mySQL;
+    public WorldSync getWorldSync() {
+        return worldSync;
     }
 
     /**
@@ -62,4 +62,11 @@ public interface Cache<K, V> {
      * @return A set of all the keys in the map.
      */
     Set<K> keys();
+
+    /**
+     * Returns hit, miss, load and eviction statistics of the cache.
+     *
+     * @return CacheStats - snapshot of the statistics
+     */
+    CacheStats getStats();
 }
@@ -0,0 +1,46 @@
+package cz.jesuschrist69.buildsystem.cache;
+
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@UtilityClass
+public class CacheRegistry {
+
+    // Sorted by name, so the admin output is stable
+    private static final Map<String, Cache<?, ?>> CACHES = new ConcurrentSkipListMap<>();
+
+    /**
+     * This method registers the cache under the given name, replacing cache registered under the same name before.
+     *
+     * @param name The name of the cache.
+     * @param cache The cache to register.
+     * @return The registered cache.
+     */
+    public <C extends Cache<?, ?>> C register(@NotNull String name, @NotNull C cache) {
+        CACHES.put(name, cache);
+        return cache;
+    }
+
+    /**
+     * This method removes the cache registered under the given name
+     *
+     * @param name The name of the cache.
+     */
+    public void unregister(@NotNull String name) {
+        CACHES.remove(name);
+    }
+
+    /**
+     * This method returns all registered caches by their name
+     *
+     * @return Unmodifiable map of caches
+     */
+    public Map<String, Cache<?, ?>> getCaches() {
+        return Collections.unmodifiableMap(CACHES);
+    }
+
+}
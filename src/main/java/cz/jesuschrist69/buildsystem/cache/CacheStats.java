@@ -0,0 +1,59 @@
+package cz.jesuschrist69.buildsystem.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable snapshot of statistics of one cache.
+ */
+@Getter
+@ToString
+public final class CacheStats {
+
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long evictionCount;
+    private final long totalLoadTime;
+
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long evictionCount, long totalLoadTime) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.evictionCount = evictionCount;
+        this.totalLoadTime = totalLoadTime;
+    }
+
+    /**
+     * Returns number of lookups, hits and misses together.
+     *
+     * @return Long - number of lookups
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns ratio of lookups that were hits, 1 when there were no lookups.
+     *
+     * @return Double - hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long requests = getRequestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns average time spent loading a value, in nanoseconds.
+     *
+     * @return Double - average load time in nanoseconds
+     */
+    public double getAverageLoadPenalty() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+    }
+}
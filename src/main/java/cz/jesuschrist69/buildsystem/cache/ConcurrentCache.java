@@ -0,0 +1,698 @@
+package cz.jesuschrist69.buildsystem.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * General purpose thread safe cache. Reads never lock, they only record the access into a lossy buffer that is
+ * replayed on the eviction policy under a lock, by whichever thread gets the lock first. The cache can be bounded by
+ * maximum size with LRU or W-TinyLFU eviction, and entries can expire after write or after access.
+ *
+ * @param <K> Type of keys.
+ * @param <V> Type of values.
+ */
+public class ConcurrentCache<K, V> implements Cache<K, V> {
+
+    /**
+     * Eviction policy used when the cache has maximum size.
+     */
+    public enum Eviction {
+        /**
+         * Evicts the least recently used entry.
+         */
+        LRU,
+        /**
+         * Admits new entries through a small LRU window, then keeps the entry that was used more often according to
+         * a frequency sketch. Survives scans and one-off lookups much better than LRU.
+         */
+        TINY_LFU
+    }
+
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int DRAIN_THRESHOLD = 32;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final long maximumSize;
+    private final Eviction eviction;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final StatsCounter stats = new StatsCounter();
+
+    // Everything below is guarded by evictionLock, except the read buffer
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readCounter = new AtomicLong();
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedQueue = new AccessOrder<>();
+    private final FrequencySketch sketch;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long lastExpirySweep;
+
+    public ConcurrentCache(@NotNull Builder<K, V> builder) {
+        this.maximumSize = builder.maximumSize;
+        this.eviction = builder.eviction;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        if (maximumSize > 0 && eviction == Eviction.TINY_LFU) {
+            this.windowMaximum = Math.max(1, maximumSize / 100);
+            this.protectedMaximum = (long) ((maximumSize - windowMaximum) * 0.8);
+            this.sketch = new FrequencySketch(maximumSize);
+        } else {
+            this.windowMaximum = maximumSize;
+            this.protectedMaximum = 0;
+            this.sketch = null;
+        }
+        this.lastExpirySweep = System.nanoTime();
+    }
+
+    /**
+     * This function creates a new Builder object.
+     *
+     * @return A new instance of the Builder class.
+     */
+    public static <K, V> Builder<K, V> create() {
+        return new Builder<>();
+    }
+
+    public static class Builder<K, V> {
+        private long maximumSize;
+        private Eviction eviction;
+        private long expireAfterWriteNanos;
+        private long expireAfterAccessNanos;
+
+        public Builder() {
+            this.maximumSize = 0;
+            this.eviction = Eviction.TINY_LFU;
+            this.expireAfterWriteNanos = 0;
+            this.expireAfterAccessNanos = 0;
+        }
+
+        /**
+         * Sets maximum number of entries in the cache, 0 means the cache is unbounded.
+         *
+         * @param maximumSize The maximum number of entries.
+         * @return The Builder object itself.
+         */
+        public Builder<K, V> withMaximumSize(long maximumSize) {
+            assert maximumSize >= 0 : "Maximum size must not be negative.";
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets the policy used to pick entries to evict when the cache is full.
+         *
+         * @param eviction The eviction policy.
+         * @return The Builder object itself.
+         */
+        public Builder<K, V> withEviction(@NotNull Eviction eviction) {
+            this.eviction = eviction;
+            return this;
+        }
+
+        /**
+         * Entries expire once the given time passes since they were written.
+         *
+         * @param duration The time after which entries expire.
+         * @param unit The unit of the duration.
+         * @return The Builder object itself.
+         */
+        public Builder<K, V> withExpireAfterWrite(long duration, @NotNull TimeUnit unit) {
+            assert duration > 0 : "Duration must be greater than 0.";
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Entries expire once the given time passes since they were last read or written.
+         *
+         * @param duration The time after which entries expire.
+         * @param unit The unit of the duration.
+         * @return The Builder object itself.
+         */
+        public Builder<K, V> withExpireAfterAccess(long duration, @NotNull TimeUnit unit) {
+            assert duration > 0 : "Duration must be greater than 0.";
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * This method returns a new ConcurrentCache object with the values of the Builder object
+         *
+         * @return A new ConcurrentCache object.
+         */
+        public ConcurrentCache<K, V> build() {
+            return new ConcurrentCache<>(this);
+        }
+    }
+
+    /**
+     * Returns the value cached under the key. When there is none, it is loaded by the loader and cached. Loading of
+     * one key happens at most once at a time, other threads asking for the same key wait for the result.
+     *
+     * @param key The key of the value.
+     * @param loader Loads the value when it is not cached, may return null when there is no value.
+     * @return V - cached or loaded value, null if the loader returned null
+     */
+    public V get(@NotNull K key, @NotNull Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        long now = System.nanoTime();
+        List<Node<K, V>> replaced = new ArrayList<>(1);
+        List<Node<K, V>> added = new ArrayList<>(1);
+        Node<K, V> node = map.compute(key, (k, old) -> {
+            if (old != null && !isExpired(old, now)) {
+                return old;
+            }
+            if (old != null) {
+                replaced.add(old);
+            }
+            long start = System.nanoTime();
+            V loaded;
+            try {
+                loaded = loader.apply(k);
+            } catch (RuntimeException | Error e) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            if (loaded == null) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                return null;
+            }
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            Node<K, V> created = new Node<>(k, loaded, now);
+            added.add(created);
+            return created;
+        });
+        afterWrite(replaced, added);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the value cached under the key, without any loading.
+     *
+     * @param key The key of the value.
+     * @return V - cached value or null
+     */
+    public V getIfPresent(@NotNull K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            stats.recordMiss();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (isExpired(node, now)) {
+            stats.recordMiss();
+            if (map.remove(key, node)) {
+                stats.recordEviction();
+                afterWrite(Collections.singletonList(node), Collections.emptyList());
+            }
+            return null;
+        }
+        stats.recordHit();
+        if (expireAfterAccessNanos > 0) {
+            node.accessTime = now;
+        }
+        afterRead(node);
+        return node.value;
+    }
+
+    /**
+     * This function registers key-value pair to the cache
+     *
+     * @param key The key to register the value with.
+     * @param value The value to be registered.
+     */
+    @Override
+    public void register(K key, V value) {
+        Node<K, V> node = new Node<>(key, value, System.nanoTime());
+        Node<K, V> old = map.put(key, node);
+        afterWrite(old == null ? Collections.emptyList() : Collections.singletonList(old), Collections.singletonList(node));
+    }
+
+    /**
+     * This function returns size of the cache
+     *
+     * @return Integer - size of cache
+     */
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * This function checks if the cache is empty.
+     *
+     * @return Boolean
+     */
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * This function clears the cache
+     */
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            map.clear();
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                readBuffer.lazySet(i, null);
+            }
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+        } finally {
+            // deadlock prevention
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * If the key exists in the cache, return the value, otherwise return an empty Optional.
+     *
+     * @param key The key to the cache.
+     * @return Optional<V>
+     */
+    @Override
+    public Optional<V> get(K key) {
+        return Optional.ofNullable(getIfPresent(key));
+    }
+
+    /**
+     * If the key exists, remove it from the cache and return the value.
+     *
+     * @param key The key to remove from the cache.
+     * @return Optional<V>
+     */
+    @Override
+    public Optional<V> remove(K key) {
+        Node<K, V> node = map.remove(key);
+        if (node == null) {
+            return Optional.empty();
+        }
+        afterWrite(Collections.singletonList(node), Collections.emptyList());
+        return isExpired(node, System.nanoTime()) ? Optional.empty() : Optional.of(node.value);
+    }
+
+    /**
+     * Returns a snapshot of the values contained in this cache
+     *
+     * @return A collection of values
+     */
+    @Override
+    public Collection<V> values() {
+        long now = System.nanoTime();
+        List<V> values = new ArrayList<>(map.size());
+        for (Node<K, V> node : map.values()) {
+            if (!isExpired(node, now)) {
+                values.add(node.value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns an unmodifiable view of all the keys in the cache.
+     *
+     * @return A set of all the keys in the cache.
+     */
+    @Override
+    public Set<K> keys() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+
+    /**
+     * Returns hit, miss, load and eviction statistics of the cache.
+     *
+     * @return CacheStats - snapshot of the statistics
+     */
+    @Override
+    public CacheStats getStats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * This function replays buffered reads on the eviction policy and removes expired entries
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance(true);
+        } finally {
+            // deadlock prevention
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the entry expired.
+     *
+     * @param node The entry.
+     * @param now Current time in nanoseconds.
+     * @return Boolean
+     */
+    private boolean isExpired(@NotNull Node<K, V> node, long now) {
+        return (expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    /**
+     * Checks if the eviction policy has to know about reads.
+     *
+     * @return Boolean
+     */
+    private boolean tracksReads() {
+        return maximumSize > 0;
+    }
+
+    /**
+     * This function records the read into the lossy read buffer and drains it once enough reads were recorded
+     *
+     * @param node The entry that was read.
+     */
+    private void afterRead(@NotNull Node<K, V> node) {
+        if (!tracksReads()) return;
+        long count = readCounter.getAndIncrement();
+        // lossy, a read overwritten before it is drained is simply forgotten
+        readBuffer.lazySet((int) (count & (READ_BUFFER_SIZE - 1)), node);
+        if ((count & (DRAIN_THRESHOLD - 1)) == DRAIN_THRESHOLD - 1 && evictionLock.tryLock()) {
+            try {
+                maintenance(false);
+            } finally {
+                // deadlock prevention
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * This function updates the eviction policy after entries were added or removed from the map
+     *
+     * @param removed Entries that are no longer in the map.
+     * @param added Entries that were added to the map.
+     */
+    private void afterWrite(@NotNull List<Node<K, V>> removed, @NotNull List<Node<K, V>> added) {
+        if (!tracksReads() && expireAfterWriteNanos == 0 && expireAfterAccessNanos == 0) return;
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node : removed) {
+                unlink(node);
+            }
+            for (Node<K, V> node : added) {
+                // the node could have been replaced before we got the lock
+                if (map.get(node.key) != node) continue;
+                if (sketch != null) {
+                    sketch.increment(node.key);
+                }
+                node.queue = Node.WINDOW;
+                window.linkLast(node);
+            }
+            maintenance(false);
+        } finally {
+            // deadlock prevention
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * This function drains the read buffer, evicts entries over the maximum size and removes expired entries.
+     * Must be called with the eviction lock held.
+     *
+     * @param forceExpirySweep Whether expired entries should be removed even if the last sweep was recently.
+     */
+    private void maintenance(boolean forceExpirySweep) {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Node<K, V> node = readBuffer.getAndSet(i, null);
+            if (node != null) {
+                onAccess(node);
+            }
+        }
+        evict();
+        long shortest = Math.min(expireAfterWriteNanos > 0 ? expireAfterWriteNanos : Long.MAX_VALUE,
+                expireAfterAccessNanos > 0 ? expireAfterAccessNanos : Long.MAX_VALUE);
+        long now = System.nanoTime();
+        if (shortest != Long.MAX_VALUE && (forceExpirySweep || now - lastExpirySweep >= shortest / 2)) {
+            lastExpirySweep = now;
+            for (Node<K, V> node : map.values()) {
+                if (isExpired(node, now) && map.remove(node.key, node)) {
+                    unlink(node);
+                    stats.recordEviction();
+                }
+            }
+        }
+    }
+
+    /**
+     * This function moves the read entry in the eviction policy
+     *
+     * @param node The entry that was read.
+     */
+    private void onAccess(@NotNull Node<K, V> node) {
+        if (sketch != null) {
+            sketch.increment(node.key);
+        }
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.moveToEnd(node);
+                break;
+            case Node.PROBATION:
+                if (sketch == null) {
+                    probation.moveToEnd(node);
+                    break;
+                }
+                probation.unlink(node);
+                node.queue = Node.PROTECTED;
+                protectedQueue.linkLast(node);
+                while (protectedQueue.size > protectedMaximum) {
+                    Node<K, V> demoted = protectedQueue.pollFirst();
+                    demoted.queue = Node.PROBATION;
+                    probation.linkLast(demoted);
+                }
+                break;
+            case Node.PROTECTED:
+                protectedQueue.moveToEnd(node);
+                break;
+            default:
+                // removed before the read was drained
+                break;
+        }
+    }
+
+    /**
+     * This function evicts entries until the cache fits into its maximum size
+     */
+    private void evict() {
+        if (maximumSize <= 0) return;
+        // entries leaving the window become candidates for the main space
+        while (window.size > windowMaximum) {
+            Node<K, V> candidate = window.pollFirst();
+            candidate.queue = Node.PROBATION;
+            probation.linkLast(candidate);
+        }
+        while (window.size + probation.size + protectedQueue.size > maximumSize) {
+            Node<K, V> victim = probation.first != null ? probation.first
+                    : protectedQueue.first != null ? protectedQueue.first : window.first;
+            Node<K, V> candidate = probation.last;
+            if (sketch != null && candidate != null && candidate != victim
+                    && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                victim = candidate;
+            }
+            unlink(victim);
+            map.remove(victim.key, victim);
+            stats.recordEviction();
+        }
+    }
+
+    /**
+     * This function removes the entry from whichever queue of the eviction policy it is in
+     *
+     * @param node The entry to remove.
+     */
+    private void unlink(@NotNull Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.unlink(node);
+                break;
+            case Node.PROBATION:
+                probation.unlink(node);
+                break;
+            case Node.PROTECTED:
+                protectedQueue.unlink(node);
+                break;
+            default:
+                break;
+        }
+        node.queue = Node.REMOVED;
+    }
+
+    private static final class Node<K, V> {
+
+        private static final byte REMOVED = 0;
+        private static final byte WINDOW = 1;
+        private static final byte PROBATION = 2;
+        private static final byte PROTECTED = 3;
+
+        private final K key;
+        private final V value;
+        private final long writeTime;
+        private volatile long accessTime;
+
+        // guarded by the eviction lock
+        private byte queue = REMOVED;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value, long now) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * Doubly linked list of entries ordered from the least to the most recently used one.
+     */
+    private static final class AccessOrder<K, V> {
+
+        private Node<K, V> first;
+        private Node<K, V> last;
+        private long size;
+
+        private void linkLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        private void unlink(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        private void moveToEnd(Node<K, V> node) {
+            if (node == last) return;
+            unlink(node);
+            linkLast(node);
+        }
+
+        private Node<K, V> pollFirst() {
+            Node<K, V> node = first;
+            if (node != null) {
+                unlink(node);
+            }
+            return node;
+        }
+
+        private void clear() {
+            Node<K, V> node = first;
+            while (node != null) {
+                Node<K, V> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.queue = Node.REMOVED;
+                node = next;
+            }
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch with four rows of counters capped at 15. All counters are halved once enough increments were
+     * recorded, so old popularity fades away.
+     */
+    private static final class FrequencySketch {
+
+        private static final int[] SEEDS = {0x97cb3127, 0xb7b3b6ff, 0x5f356495, 0x7a5b3a2f};
+
+        private final byte[][] table;
+        private final int mask;
+        private final long sampleSize;
+        private long additions;
+
+        private FrequencySketch(long maximumSize) {
+            int width = Integer.highestOneBit((int) Math.min(Math.max(maximumSize, 16), 1 << 24) - 1) << 1;
+            this.table = new byte[SEEDS.length][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * Math.max(maximumSize, 16);
+        }
+
+        private void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int index = index(hash, row);
+                if (table[row][index] < 15) {
+                    table[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = 15;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, table[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xed5ad4bb;
+            return hash ^ (hash >>> 11);
+        }
+    }
+}
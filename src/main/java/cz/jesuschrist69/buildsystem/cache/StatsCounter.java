@@ -0,0 +1,69 @@
+package cz.jesuschrist69.buildsystem.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records statistics of a cache. Counters are striped, so recording from many threads at once stays cheap.
+ */
+public final class StatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    /**
+     * This function records a lookup that found a value.
+     */
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    /**
+     * This function records a lookup that found no value.
+     */
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    /**
+     * This function records a value that was loaded.
+     *
+     * @param loadTime Time spent loading, in nanoseconds.
+     */
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    /**
+     * This function records a load that failed or returned no value.
+     *
+     * @param loadTime Time spent loading, in nanoseconds.
+     */
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    /**
+     * This function records an entry removed because of size or expiry.
+     */
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    /**
+     * Returns current values of all counters.
+     *
+     * @return CacheStats - snapshot of the counters
+     */
+    public @NotNull CacheStats snapshot() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+                evictionCount.sum(), totalLoadTime.sum());
+    }
+}
@@ -1,21 +1,22 @@
 package cz.jesuschrist69.buildsystem.cache.type;
 
 import cz.jesuschrist69.buildsystem.BuildSystem;
-import cz.jesuschrist69.buildsystem.cache.Cache;
+import cz.jesuschrist69.buildsystem.cache.ConcurrentCache;
 import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
 import cz.jesuschrist69.buildsystem.utils.FileUtils;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.List;
 
-public class FileCache implements Cache<String, YamlConfiguration> {
+public class FileCache extends ConcurrentCache<String, YamlConfiguration> {
 
-    // Thread safe
-    private final Map<String, YamlConfiguration> cache = new ConcurrentHashMap<>();
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int version;
+
+    public FileCache(int version) {
+        super(ConcurrentCache.create());
+        this.version = version;
+    }
 
     /**
      * This function loads all the files from the jar file and registers them
@@ -35,106 +36,14 @@ public class FileCache implements Cache<String, YamlConfiguration> {
     }
 
     /**
-     * This function registers key-value pair to the cache
-     *
-     * @param key The key to register the value with.
-     * @param value The value to be registered.
-     */
-    @Override
-    public void register(String key, YamlConfiguration value) {
-        lock.writeLock().lock();
-        try {
-            cache.put(key, value);
-        } finally {
-            // deadlock prevention
-            lock.writeLock().unlock();
-        }
-    }
-
-    /**
-     * This function returns size of the cache
-     *
-     * @return Integer - size of cache
-     */
-    @Override
-    public int size() {
-        return cache.size();
-    }
-
-    /**
-     * This function checks if the cache is empty.
-     *
-     * @return Boolean
-     */
-    @Override
-    public boolean isEmpty() {
-        return cache.isEmpty();
-    }
-
-    /**
-     * This function clears the cache
-     */
-    @Override
-    public void clear() {
-        cache.clear();
-    }
-
-    /**
-     * "If the key exists in the cache, return the value, otherwise return an empty Optional."
-     *
-     * The first thing we do is acquire a read lock. This is a lock that allows multiple threads to read from the cache at
-     * the same time, but only one thread to write to the cache at a time
-     *
-     * @param key The key to the cache.
-     * @return Optional<RoleManager.RoleUser>
-     */
-    @Override
-    public Optional<YamlConfiguration> get(String key) {
-        lock.readLock().lock();
-        try {
-            return Optional.of(cache.get(key));
-        } finally {
-            // deadlock prevention
-            lock.readLock().unlock();
-        }
-    }
-
-    /**
-     * "If the key exists, remove it from the cache and return the value."
-     *
-     * The first thing we do is acquire a write lock. This is because we are going to modify the cache
-     *
-     * @param key The key to remove from the cache.
-     * @return Optional<RoleManager.RoleUser>
-     */
-    @Override
-    public Optional<YamlConfiguration> remove(String key) {
-        lock.writeLock().lock();
-        try {
-            return Optional.of(cache.remove(key));
-        } finally {
-            // deadlock prevention
-            lock.writeLock().unlock();
-        }
-    }
-
-    /**
-     * > Returns a collection view of the values contained in this map
-     *
-     * @return A collection of RoleUser objects
-     */
-    @Override
-    public Collection<YamlConfiguration> values() {
-        return cache.values();
-    }
-
-    /**
-     * Returns a set of all the keys in the cache.
+     * Returns version of the configuration the file under the given key was loaded with. Every reload loads files
+     * with a higher version, so anything derived from a file can remember this number and rebuild itself once it
+     * changes.
      *
-     * @return A set of all the keys in the cache.
+     * @param key The key of the file.
+     * @return Integer - version of the file, 0 if there is no such file
      */
-    @Override
-    public Set<String> keys() {
-        return cache.keySet();
+    public int getVersion(String key) {
+        return keys().contains(key) ? version : 0;
     }
 }
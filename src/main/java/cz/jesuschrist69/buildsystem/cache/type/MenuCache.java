@@ -0,0 +1,141 @@
+package cz.jesuschrist69.buildsystem.cache.type;
+
+import cz.jesuschrist69.buildsystem.cache.Cache;
+import cz.jesuschrist69.buildsystem.cache.CacheStats;
+import cz.jesuschrist69.buildsystem.cache.StatsCounter;
+import cz.jesuschrist69.buildsystem.gui.GuiLayout;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+public class MenuCache implements Cache<Integer, GuiLayout> {
+
+    // Thread safe
+    private final Map<Integer, GuiLayout> cache = new ConcurrentHashMap<>();
+    private volatile int langVersion = -1;
+    private final StatsCounter stats = new StatsCounter();
+
+    /**
+     * Returns the layout built for the given permission mask. Layout is built only once for every mask, all layouts are
+     * dropped when they were built for another lang.yml version.
+     *
+     * @param mask The permission mask of the viewer.
+     * @param langVersion Version of lang.yml messages.
+     * @param builder Function that builds the layout for the mask.
+     * @return GuiLayout - cached layout
+     */
+    public GuiLayout getLayout(int mask, int langVersion, @NotNull IntFunction<GuiLayout> builder) {
+        if (this.langVersion != langVersion) {
+            cache.clear();
+            this.langVersion = langVersion;
+        }
+        GuiLayout layout = cache.get(mask);
+        if (layout != null) {
+            stats.recordHit();
+            return layout;
+        }
+        stats.recordMiss();
+        return cache.computeIfAbsent(mask, m -> {
+            long start = System.nanoTime();
+            GuiLayout built = builder.apply(m);
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            return built;
+        });
+    }
+
+    /**
+     * Returns hit, miss, load and eviction statistics of the cache.
+     *
+     * @return CacheStats - snapshot of the statistics
+     */
+    @Override
+    public CacheStats getStats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * This function registers key-value pair to the cache
+     *
+     * @param key The key to register the value with.
+     * @param value The value to be registered.
+     */
+    @Override
+    public void register(Integer key, GuiLayout value) {
+        cache.put(key, value);
+    }
+
+    /**
+     * This function returns size of the cache
+     *
+     * @return Integer - size of cache
+     */
+    @Override
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * This function checks if the cache is empty.
+     *
+     * @return Boolean
+     */
+    @Override
+    public boolean isEmpty() {
+        return cache.isEmpty();
+    }
+
+    /**
+     * This function clears the cache
+     */
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * If the key exists in the cache, return the value, otherwise return an empty Optional.
+     *
+     * @param key The permission mask.
+     * @return Optional<GuiLayout>
+     */
+    @Override
+    public Optional<GuiLayout> get(Integer key) {
+        return Optional.ofNullable(cache.get(key));
+    }
+
+    /**
+     * If the key exists, remove it from the cache and return the value.
+     *
+     * @param key The permission mask.
+     * @return Optional<GuiLayout>
+     */
+    @Override
+    public Optional<GuiLayout> remove(Integer key) {
+        return Optional.ofNullable(cache.remove(key));
+    }
+
+    /**
+     * Returns a collection view of the values contained in this cache
+     *
+     * @return A collection of GuiLayout objects
+     */
+    @Override
+    public Collection<GuiLayout> values() {
+        return cache.values();
+    }
+
+    /**
+     * Returns a set of all the keys in the cache.
+     *
+     * @return A set of all the keys in the cache.
+     */
+    @Override
+    public Set<Integer> keys() {
+        return cache.keySet();
+    }
+}
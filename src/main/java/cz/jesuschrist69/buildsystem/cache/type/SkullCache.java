@@ -0,0 +1,83 @@
+package cz.jesuschrist69.buildsystem.cache.type;
+
+import cz.jesuschrist69.buildsystem.cache.ConcurrentCache;
+import dev.dbassett.skullcreator.SkullCreator;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+
+public class SkullCache extends ConcurrentCache<String, ItemStack> {
+
+    private static final String OWNER_PREFIX = "owner:";
+    private static final String TEXTURE_PREFIX = "texture:";
+
+    private final int maximumSize;
+
+    public SkullCache(int maximumSize) {
+        super(ConcurrentCache.<String, ItemStack>create()
+                .withMaximumSize(maximumSize)
+                .withEviction(ConcurrentCache.Eviction.LRU));
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns a copy of the player head of the given owner. The head is resolved only when it is not cached yet.
+     *
+     * @param owner The name of the player whose head you want.
+     * @return ItemStack - copy of the cached head
+     */
+    public ItemStack getOwnerHead(@NotNull String owner) {
+        return get(OWNER_PREFIX + owner.toLowerCase(Locale.ROOT), key -> {
+            ItemStack head = new ItemStack(Material.SKULL_ITEM, 1, (short) 3);
+            SkullMeta meta = (SkullMeta) head.getItemMeta();
+            meta.setOwner(owner);
+            head.setItemMeta(meta);
+            return head;
+        }).clone();
+    }
+
+    /**
+     * Returns a copy of the player head with the given base64 texture. The head is resolved only when it is not
+     * cached yet.
+     *
+     * @param base64 The base64 texture of the head.
+     * @return ItemStack - copy of the cached head
+     */
+    public ItemStack getTextureHead(@NotNull String base64) {
+        return get(TEXTURE_PREFIX + base64,
+                key -> SkullCreator.itemWithBase64(new ItemStack(Material.SKULL_ITEM, 1, (short) 3), base64)).clone();
+    }
+
+    /**
+     * This function resolves heads of the given owners that are not cached yet, in the given order. At most half of
+     * the cache is warmed, so warming does not evict its own heads and leaves room for texture heads and owners seen
+     * later. It is meant to be called asynchronously, so the heads are ready before the first menu is rendered.
+     *
+     * @param owners The names of the players whose heads should be cached, the most wanted first.
+     */
+    public void warm(@NotNull Collection<String> owners) {
+        int left = maximumSize / 2;
+        for (String owner : owners) {
+            if (left == 0) break;
+            if (owner == null || owner.isEmpty()) continue;
+            getOwnerHead(owner);
+            left--;
+        }
+    }
+
+    /**
+     * If the key exists in the cache, return copy of the value, otherwise return an empty Optional.
+     *
+     * @param key The key of the head.
+     * @return Optional<ItemStack>
+     */
+    @Override
+    public Optional<ItemStack> get(String key) {
+        return super.get(key).map(ItemStack::clone);
+    }
+}
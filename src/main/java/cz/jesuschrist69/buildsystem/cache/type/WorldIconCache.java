@@ -0,0 +1,174 @@
+package cz.jesuschrist69.buildsystem.cache.type;
+
+import cz.jesuschrist69.buildsystem.cache.Cache;
+import cz.jesuschrist69.buildsystem.cache.CacheStats;
+import cz.jesuschrist69.buildsystem.cache.StatsCounter;
+import cz.jesuschrist69.buildsystem.component.WorldType;
+import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.gui.GuiItem;
+import cz.jesuschrist69.buildsystem.lang.Message;
+import cz.jesuschrist69.buildsystem.manager.MessageManager;
+import lombok.Getter;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class WorldIconCache implements Cache<String, WorldIconCache.Icon> {
+
+    // Thread safe
+    private final Map<String, Icon> cache = new ConcurrentHashMap<>();
+    private final StatsCounter stats = new StatsCounter();
+
+    /**
+     * Returns a copy of the icon of the given world. Icon is built only when there is no cached icon for the world or
+     * when the cached one was built for another lang.yml version or before the world's lock, hide or loaded state changed.
+     *
+     * @param world The world to get the icon for.
+     * @param messages The messages the icon is built from.
+     * @return ItemStack - copy of the cached icon
+     */
+    public ItemStack getIcon(@NotNull WorldData world, @NotNull MessageManager messages) {
+        int langVersion = messages.getVersion();
+        int revision = world.getRevision();
+        Icon icon = cache.get(world.getName());
+        if (icon == null || icon.langVersion != langVersion || icon.revision != revision) {
+            stats.recordMiss();
+            long start = System.nanoTime();
+            icon = new Icon(build(world, messages), langVersion, revision);
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            cache.put(world.getName(), icon);
+        } else {
+            stats.recordHit();
+        }
+        return icon.item.clone();
+    }
+
+    /**
+     * Returns hit, miss, load and eviction statistics of the cache.
+     *
+     * @return CacheStats - snapshot of the statistics
+     */
+    @Override
+    public CacheStats getStats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * This function builds the icon of the world from lang.yml messages
+     *
+     * @param world The world to build the icon for.
+     * @param messages The compiled lang.yml messages.
+     * @return ItemStack - icon of the world
+     */
+    private ItemStack build(@NotNull WorldData world, @NotNull MessageManager messages) {
+        String created = world.getFormatTime();
+        String yes = messages.format(Message.STATE_YES);
+        String no = messages.format(Message.STATE_NO);
+        String[] values = {world.getOwner(), world.getName(), created,
+                world.isLoaded() ? yes : no, world.isLocked() ? yes : no, world.isHidden() ? yes : no};
+        return GuiItem.create()
+                .withItem(new ItemStack(world.getWorldType() == WorldType.EMPTY ? Material.BEDROCK : Material.GRASS))
+                .withName(messages.format(Message.WORLD_ICON_NAME, values))
+                .withLore(messages.lines(Message.WORLD_ICON_LORE, values))
+                .build()
+                .getItem();
+    }
+
+    /**
+     * This function registers key-value pair to the cache
+     *
+     * @param key The key to register the value with.
+     * @param value The value to be registered.
+     */
+    @Override
+    public void register(String key, Icon value) {
+        cache.put(key, value);
+    }
+
+    /**
+     * This function returns size of the cache
+     *
+     * @return Integer - size of cache
+     */
+    @Override
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * This function checks if the cache is empty.
+     *
+     * @return Boolean
+     */
+    @Override
+    public boolean isEmpty() {
+        return cache.isEmpty();
+    }
+
+    /**
+     * This function clears the cache
+     */
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * If the key exists in the cache, return the value, otherwise return an empty Optional.
+     *
+     * @param key The name of the world.
+     * @return Optional<Icon>
+     */
+    @Override
+    public Optional<Icon> get(String key) {
+        return Optional.ofNullable(cache.get(key));
+    }
+
+    /**
+     * If the key exists, remove it from the cache and return the value.
+     *
+     * @param key The name of the world.
+     * @return Optional<Icon>
+     */
+    @Override
+    public Optional<Icon> remove(String key) {
+        return Optional.ofNullable(cache.remove(key));
+    }
+
+    /**
+     * Returns a collection view of the values contained in this cache
+     *
+     * @return A collection of Icon objects
+     */
+    @Override
+    public Collection<Icon> values() {
+        return cache.values();
+    }
+
+    /**
+     * Returns a set of all the keys in the cache.
+     *
+     * @return A set of all the keys in the cache.
+     */
+    @Override
+    public Set<String> keys() {
+        return cache.keySet();
+    }
+
+    @Getter
+    public static class Icon {
+
+        private final ItemStack item;
+        private final int langVersion;
+        private final int revision;
+
+        public Icon(@NotNull ItemStack item, int langVersion, int revision) {
+            this.item = item;
+            this.langVersion = langVersion;
+            this.revision = revision;
+        }
+    }
+}
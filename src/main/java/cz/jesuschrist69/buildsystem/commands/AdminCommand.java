@@ -0,0 +1,219 @@
+package cz.jesuschrist69.buildsystem.commands;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.cache.Cache;
+import cz.jesuschrist69.buildsystem.cache.CacheRegistry;
+import cz.jesuschrist69.buildsystem.cache.CacheStats;
+import com.grinderwolf.swm.api.SlimePlugin;
+import com.grinderwolf.swm.api.loaders.SlimeLoader;
+import cz.jesuschrist69.buildsystem.component.BuildSystemCommandExecutor;
+import cz.jesuschrist69.buildsystem.component.WorldType;
+import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
+import cz.jesuschrist69.buildsystem.lang.Message;
+import cz.jesuschrist69.buildsystem.manager.WorldSync;
+import cz.jesuschrist69.buildsystem.mysql.Queries;
+import cz.jesuschrist69.buildsystem.mysql.Storage;
+import cz.jesuschrist69.buildsystem.mysql.stats.QueryShapeStats;
+import cz.jesuschrist69.buildsystem.utils.ColorUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@BuildSystemCommandExecutor
+public class AdminCommand extends Command {
+
+    private static final String PERMISSION = "buildsystem.admin";
+    // query shapes listed by the queries subcommand
+    private static final int QUERY_LIMIT = 10;
+    // length of the owner column
+    private static final int MAX_OWNER_LENGTH = 16;
+
+    private BuildSystem plugin;
+
+    public AdminCommand() {
+        super("bsadmin", "", "/bsadmin <caches|database|queries [reset]|import <owner>|reload> - BuildSystem administration", Collections.singletonList("buildsystemadmin"));
+    }
+
+    /**
+     * This function is called when the plugin is enabled.
+     *
+     * @param plugin The plugin instance.
+     */
+    public void init(@NotNull BuildSystem plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * If the sender has admin permission, run the given subcommand
+     *
+     * @param cs The CommandSender, this is the player or console who executed the command.
+     * @param commandLabel The command label that was used to execute the command.
+     * @param args The arguments passed to the command.
+     * @return A boolean
+     */
+    @Override
+    public boolean execute(CommandSender cs, String commandLabel, String[] args) {
+        if (!cs.hasPermission(PERMISSION)) {
+            plugin.getMessageManager().send(cs, Message.NO_PERM);
+            return true;
+        }
+        if (args.length == 0) {
+            cs.sendMessage(ColorUtils.colorize("&cUsage: " + getUsage()));
+            return true;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "caches":
+                sendCaches(cs);
+                break;
+            case "database":
+                sendDatabase(cs);
+                break;
+            case "queries":
+                if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                    plugin.getStorage().getQueryStats().reset();
+                    cs.sendMessage(ColorUtils.colorize("&aQuery statistics reset."));
+                } else {
+                    sendQueries(cs);
+                }
+                break;
+            case "import":
+                if (args.length < 2 || args[1].length() > MAX_OWNER_LENGTH) {
+                    cs.sendMessage(ColorUtils.colorize("&cUsage: /bsadmin import <owner> - imported worlds get type EMPTY"));
+                    break;
+                }
+                importWorlds(cs, args[1]);
+                break;
+            case "reload":
+                cs.sendMessage(ColorUtils.colorize("&7Reloading configuration..."));
+                plugin.getConfigManager().reload(error -> {
+                    if (error == null) {
+                        cs.sendMessage(ColorUtils.colorize("&aConfiguration reloaded."));
+                    } else {
+                        cs.sendMessage(ColorUtils.colorize("&cFailed to reload configuration: " + error.getMessage()));
+                    }
+                });
+                break;
+            default:
+                cs.sendMessage(ColorUtils.colorize("&cUsage: " + getUsage()));
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * This function registers every world of the SlimeWorldManager loader that has no row yet, with the given owner
+     * and type EMPTY, as the loader does not know the type. Names that are registered already are read first, in
+     * chunks, and only the missing worlds are inserted with a few multi-row inserts and recorded for other servers.
+     *
+     * @param cs The sender who receives the result.
+     * @param owner The owner of the imported worlds.
+     */
+    private void importWorlds(@NotNull CommandSender cs, @NotNull String owner) {
+        SlimePlugin slimePlugin = (SlimePlugin) Bukkit.getPluginManager().getPlugin("SlimeWorldManager");
+        SlimeLoader loader = slimePlugin.getLoader(plugin.getSlimeLoader());
+        cs.sendMessage(ColorUtils.colorize("&7Importing worlds of loader &f" + plugin.getSlimeLoader() + "&7..."));
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            String result;
+            try {
+                List<String> names = loader.listWorlds();
+                Set<String> registered = new HashSet<>();
+                for (WorldData world : plugin.getWorldCatalog().fetch(names)) {
+                    registered.add(world.getName().toLowerCase(Locale.ROOT));
+                }
+                List<String> missing = new ArrayList<>();
+                for (String name : names) {
+                    if (registered.add(name.toLowerCase(Locale.ROOT))) {
+                        missing.add(name);
+                    }
+                }
+
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                List<Object[]> rows = new ArrayList<>(missing.size());
+                for (String name : missing) {
+                    rows.add(new Object[]{name, 0, 0, owner, now, WorldType.EMPTY.name()});
+                }
+                // rows registered by another server in the meantime are still kept by the upsert
+                plugin.getStorage().transaction(tx -> {
+                    tx.insertAll(Queries.REGISTER_WORLDS, rows);
+                    plugin.getWorldSync().recordAll(tx, missing, WorldSync.Change.CREATED);
+                });
+                if (!plugin.getWorldCatalog().isTiered()) {
+                    WorldData.promoteAll(plugin.getWorldCatalog().fetch(missing));
+                }
+                result = "&aImported " + missing.size() + " worlds as EMPTY, " + (names.size() - missing.size())
+                        + " worlds were registered already and were kept.";
+            } catch (IOException | BuildSystemException e) {
+                result = "&cFailed to import worlds: " + e.getMessage();
+            }
+            String message = result;
+            Bukkit.getScheduler().runTask(plugin, () -> cs.sendMessage(ColorUtils.colorize(message)));
+        });
+    }
+
+    /**
+     * This function sends database statistics to the sender
+     *
+     * @param cs The receiver of the statistics.
+     */
+    private void sendDatabase(@NotNull CommandSender cs) {
+        cs.sendMessage(ColorUtils.colorize("&b&lDatabase"));
+        Storage storage = plugin.getStorage();
+        cs.sendMessage(ColorUtils.colorize("&7Storage: &f" + storage.getType()));
+        cs.sendMessage(ColorUtils.colorize("&7Connection: " + (storage.isConnected() ? "&a" : "&c") + storage.getState()
+                + (storage.isConnected() ? "" : " &7(next attempt in &f" + storage.getRetryIn() / 1000 + "s&7)")));
+        cs.sendMessage(ColorUtils.colorize("&7World save conflicts: &f" + WorldData.getSaveConflicts()));
+        cs.sendMessage(ColorUtils.colorize("&7World saves given up: &f" + WorldData.getFailedSaves()));
+    }
+
+    /**
+     * This function sends latency statistics of the query shapes that took the most time to the sender
+     *
+     * @param cs The receiver of the statistics.
+     */
+    private void sendQueries(@NotNull CommandSender cs) {
+        List<QueryShapeStats> stats = plugin.getStorage().getQueryStats().getStats();
+        cs.sendMessage(ColorUtils.colorize("&b&lQueries &7(top " + Math.min(QUERY_LIMIT, stats.size()) + " of " + stats.size()
+                + " by total time, ms)"));
+        cs.sendMessage(ColorUtils.colorize(String.format("&7%8s %6s %8s %8s %8s %8s %9s  %s",
+                "count", "errors", "p50", "p95", "p99", "max", "total", "query")));
+        for (QueryShapeStats shape : stats.subList(0, Math.min(QUERY_LIMIT, stats.size()))) {
+            String query = shape.getShape().length() > 80 ? shape.getShape().substring(0, 77) + "..." : shape.getShape();
+            cs.sendMessage(ColorUtils.colorize(String.format("&f%8d %6d %8.2f %8.2f %8.2f %8.2f %9.1f  &7%s",
+                    shape.getCount(), shape.getErrorCount(), shape.getP50() / 1e6, shape.getP95() / 1e6, shape.getP99() / 1e6,
+                    shape.getMaxTime() / 1e6, shape.getTotalTime() / 1e6, query)));
+        }
+    }
+
+    /**
+     * This function sends statistics of all registered caches and of the click limiter to the sender
+     *
+     * @param cs The receiver of the statistics.
+     */
+    private void sendCaches(@NotNull CommandSender cs) {
+        cs.sendMessage(ColorUtils.colorize("&b&lCaches"));
+        cs.sendMessage(ColorUtils.colorize(String.format("&7%-12s %7s %9s %9s %7s %7s %6s %9s %9s",
+                "name", "size", "hits", "misses", "hit%", "loads", "fails", "evicted", "avg load")));
+        for (Map.Entry<String, Cache<?, ?>> entry : CacheRegistry.getCaches().entrySet()) {
+            CacheStats stats = entry.getValue().getStats();
+            cs.sendMessage(ColorUtils.colorize(String.format("&f%-12s %7d %9d %9d %6.1f%% %7d %6d %9d %7.2fms",
+                    entry.getKey(), entry.getValue().size(), stats.getHitCount(), stats.getMissCount(),
+                    stats.getHitRate() * 100, stats.getLoadSuccessCount(), stats.getLoadFailureCount(),
+                    stats.getEvictionCount(), stats.getAverageLoadPenalty() / 1e6)));
+        }
+        cs.sendMessage(ColorUtils.colorize(String.format("&7Clicks merged: &f%d &7dropped: &f%d",
+                plugin.getClickLimiter().getMergedClicks(), plugin.getClickLimiter().getDroppedClicks())));
+    }
+}
@@ -3,14 +3,13 @@ package cz.jesuschrist69.buildsystem.commands;
 import cz.jesuschrist69.buildsystem.BuildSystem;
 import cz.jesuschrist69.buildsystem.component.BuildSystemCommandExecutor;
 import cz.jesuschrist69.buildsystem.gui.menus.MainMenu;
-import cz.jesuschrist69.buildsystem.utils.ColorUtils;
+import cz.jesuschrist69.buildsystem.lang.Message;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
-import java.util.List;
 
 @BuildSystemCommandExecutor
 public class BuildSystemCommand extends Command {
@@ -43,13 +42,7 @@ public class BuildSystemCommand extends Command {
         if (cs instanceof Player) {
             Player player = (Player) cs;
             if (plugin.getRoleManager().getUserRoles(player).isEmpty()) {
-                plugin.getFileCache().get("lang.yml").ifPresent(lang -> {
-                    List<String> message = lang.getStringList("MESSAGES.NO-PERM");
-                    if (message == null || message.isEmpty()) return;
-                    for (String s : message) {
-                        player.sendMessage(ColorUtils.colorize(s));
-                    }
-                });
+                plugin.getMessageManager().send(player, Message.NO_PERM);
                 return true;
             }
             MainMenu.open(player, plugin);
@@ -3,17 +3,15 @@ package cz.jesuschrist69.buildsystem.commands;
 import cz.jesuschrist69.buildsystem.BuildSystem;
 import cz.jesuschrist69.buildsystem.component.BuildSystemCommandExecutor;
 import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.lang.Message;
+import cz.jesuschrist69.buildsystem.manager.MessageManager;
 import cz.jesuschrist69.buildsystem.manager.RoleManager;
-import cz.jesuschrist69.buildsystem.utils.ColorUtils;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
 
 @BuildSystemCommandExecutor
 public class LockCommand extends Command {
@@ -45,15 +43,9 @@ public class LockCommand extends Command {
     public boolean execute(CommandSender cs, String commandLabel, String[] args) {
         if (cs instanceof Player) {
             Player player = (Player) cs;
-            Optional<YamlConfiguration> langFile = plugin.getFileCache().get("lang.yml");
+            MessageManager messages = plugin.getMessageManager();
             if (!plugin.getRoleManager().hasPermission(player, RoleManager.Permission.LOCK_WORLDS)) {
-                langFile.ifPresent(lang -> {
-                    List<String> message = lang.getStringList("MESSAGES.NO-PERM");
-                    if (message == null || message.isEmpty()) return;
-                    for (String s : message) {
-                        player.sendMessage(ColorUtils.colorize(s));
-                    }
-                });
+                messages.send(player, Message.NO_PERM);
                 return true;
             }
 
@@ -61,24 +53,22 @@ public class LockCommand extends Command {
             for (WorldData wd : WorldData.getWORLDS()) {
                 if (wd.getName().equalsIgnoreCase(world)) {
                     if (wd.isLocked()) {
-                        langFile.ifPresent(lang -> {
-                            List<String> message = lang.getStringList("MESSAGES.ALREADY-LOCKED");
-                            if (message == null || message.isEmpty()) return;
-                            for (String s : message) {
-                                player.sendMessage(ColorUtils.colorize(s));
-                            }
-                        });
+                        messages.send(player, Message.ALREADY_LOCKED);
+                        break;
+                    }
+                    // nothing is changed when it could not be saved
+                    if (!plugin.getStorage().isConnected()) {
+                        messages.send(player, Message.DATABASE_UNAVAILABLE);
                         break;
                     }
                     wd.toggleLock();
-                    wd.save(plugin);
-                    langFile.ifPresent(lang -> {
-                        List<String> message = lang.getStringList("MESSAGES.WORLD-LOCKED");
-                        if (message == null || message.isEmpty()) return;
-                        for (String s : message) {
-                            s = s.replace("%world-name%", world);
-                            player.sendMessage(ColorUtils.colorize(s));
+                    wd.save(plugin, error -> {
+                        if (error != null) {
+                            plugin.getLogger().warning(error.getMessage());
+                            messages.send(player, Message.SAVE_FAILED, world);
+                            return;
                         }
+                        messages.send(player, Message.WORLD_LOCKED, world);
                     });
                     break;
                 }
@@ -0,0 +1,36 @@
+package cz.jesuschrist69.buildsystem.config;
+
+import lombok.Getter;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Name and lore of a gui button as configured in lang.yml.
+ */
+@Getter
+public final class ButtonConfig {
+
+    private final String name;
+    private final List<String> lore;
+
+    public ButtonConfig(@NotNull String name, @NotNull List<String> lore) {
+        this.name = name;
+        this.lore = Collections.unmodifiableList(new ArrayList<>(lore));
+    }
+
+    /**
+     * This function reads the button from NAME and LORE keys under the given path.
+     *
+     * @param config The configuration to read from.
+     * @param path The path of the button.
+     * @param defName The name used when the configuration has none.
+     * @return ButtonConfig - the button
+     */
+    public static ButtonConfig read(@NotNull ConfigurationSection config, @NotNull String path, @NotNull String defName) {
+        return new ButtonConfig(config.getString(path + ".NAME", defName), config.getStringList(path + ".LORE"));
+    }
+}
@@ -0,0 +1,62 @@
+package cz.jesuschrist69.buildsystem.config;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.cache.type.FileCache;
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
+import cz.jesuschrist69.buildsystem.lang.MessageTemplates;
+import lombok.Getter;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Optional;
+
+/**
+ * Everything loaded from configuration files at one moment: the files themselves, settings and roles compiled from
+ * settings.yml, and menus and messages compiled from lang.yml. Reload builds a new snapshot and replaces the old one
+ * as a whole, nothing in a snapshot is changed after it is created.
+ */
+@Getter
+public final class ConfigSnapshot {
+
+    private final int version;
+    private final FileCache files;
+    private final SettingsConfig settings;
+    private final MenusConfig menus;
+    private final MessageTemplates messages;
+
+    private ConfigSnapshot(int version, @NotNull FileCache files, @NotNull SettingsConfig settings, @NotNull MenusConfig menus,
+                           @NotNull MessageTemplates messages) {
+        this.version = version;
+        this.files = files;
+        this.settings = settings;
+        this.menus = menus;
+        this.messages = messages;
+    }
+
+    /**
+     * This function loads all files from the data folder and compiles roles and messages from them.
+     *
+     * @param plugin The plugin instance.
+     * @param version Version of the new snapshot.
+     * @return ConfigSnapshot - the loaded snapshot
+     */
+    public static ConfigSnapshot load(@NotNull BuildSystem plugin, int version) {
+        FileCache files = new FileCache(version);
+        files.init(plugin);
+
+        Optional<YamlConfiguration> settingsFile = files.get("settings.yml");
+        if (!settingsFile.isPresent()) {
+            throw new BuildSystemException("Could not load roles because file settings.yml is missing!");
+        }
+        SettingsConfig settings = new SettingsConfig(settingsFile.get());
+
+        Optional<YamlConfiguration> lang = files.get("lang.yml");
+        if (!lang.isPresent()) {
+            throw new BuildSystemException("Could not compile messages because file lang.yml is missing!");
+        }
+        MenusConfig menus = new MenusConfig(lang.get());
+        MessageTemplates messages = new MessageTemplates(lang.get(), version);
+
+        return new ConfigSnapshot(version, files, settings, menus, messages);
+    }
+}
@@ -0,0 +1,97 @@
+package cz.jesuschrist69.buildsystem.config;
+
+import lombok.Getter;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Titles and buttons of all menus, read from the MENUS section of lang.yml once when the configuration is loaded.
+ */
+@Getter
+public final class MenusConfig {
+
+    private final Main main;
+    private final Create create;
+    private final WorldList worldList;
+    private final Delete delete;
+
+    public MenusConfig(@NotNull ConfigurationSection lang) {
+        this.main = new Main(lang);
+        this.create = new Create(lang);
+        this.worldList = new WorldList(lang);
+        this.delete = new Delete(lang);
+    }
+
+    @Getter
+    public static final class Main {
+
+        private final String title;
+        private final ButtonConfig allWorlds;
+        private final ButtonConfig search;
+        private final ButtonConfig create;
+
+        private Main(@NotNull ConfigurationSection lang) {
+            this.title = lang.getString("MENUS.MAIN.TITLE", "&2&lBuild&f&lSystem");
+            this.allWorlds = ButtonConfig.read(lang, "MENUS.MAIN.ALL-WORLDS", "&eWorld List");
+            this.search = ButtonConfig.read(lang, "MENUS.MAIN.SEARCH-ITEM", "&eWorld Search");
+            this.create = ButtonConfig.read(lang, "MENUS.MAIN.CREATE-ITEM", "&aCreate New World");
+        }
+    }
+
+    @Getter
+    public static final class Create {
+
+        private final String title;
+        private final ButtonConfig emptyGenerator;
+        private final ButtonConfig flatGenerator;
+        // name of the world name button is the CREATE_WORLD_NAME message, it has a placeholder
+        private final List<String> worldNameLore;
+        private final ButtonConfig createButton;
+        private final ButtonConfig createButtonDisabled;
+        private final ButtonConfig back;
+
+        private Create(@NotNull ConfigurationSection lang) {
+            this.title = lang.getString("MENUS.CREATE.TITLE", "&aCreate new world...");
+            this.emptyGenerator = ButtonConfig.read(lang, "MENUS.CREATE.EMPTY-GENERATOR", "&aEmpty World");
+            this.flatGenerator = ButtonConfig.read(lang, "MENUS.CREATE.FLAT-GENERATOR", "&aFlat World");
+            this.worldNameLore = Collections.unmodifiableList(lang.getStringList("MENUS.CREATE.WORLD-NAME.LORE"));
+            this.createButton = ButtonConfig.read(lang, "MENUS.CREATE.CREATE-BTN", "&aCreate World");
+            this.createButtonDisabled = ButtonConfig.read(lang, "MENUS.CREATE.CREATE-BTN-DISABLED", "&cCan not create world!");
+            this.back = ButtonConfig.read(lang, "MENUS.CREATE.BACK-BUTTON", "&cGo Back");
+        }
+    }
+
+    @Getter
+    public static final class WorldList {
+
+        private final String title;
+        private final ButtonConfig previousPage;
+        private final ButtonConfig nextPage;
+        private final ButtonConfig back;
+
+        private WorldList(@NotNull ConfigurationSection lang) {
+            this.title = lang.getString("MENUS.ALL-WORLD-LIST.TITLE", "&bListing Worlds...");
+            this.previousPage = ButtonConfig.read(lang, "MENUS.ALL-WORLD-LIST.PREVIOUS-PAGE-BUTTON", "&aScroll Up");
+            this.nextPage = ButtonConfig.read(lang, "MENUS.ALL-WORLD-LIST.NEXT-PAGE-BUTTON", "&eScroll Down");
+            this.back = ButtonConfig.read(lang, "MENUS.ALL-WORLD-LIST.BACK-BUTTON", "&cGo Back");
+        }
+    }
+
+    @Getter
+    public static final class Delete {
+
+        private final String title;
+        private final ButtonConfig cancel;
+        // lore of the confirm button is the DELETE_CONFIRM_LORE message, it has a placeholder
+        private final String confirmName;
+
+        private Delete(@NotNull ConfigurationSection lang) {
+            this.title = lang.getString("MENUS.DELETE.TITLE", "&cDeleting world...");
+            this.cancel = ButtonConfig.read(lang, "MENUS.DELETE.CANCEL-BUTTON", "&cCancel");
+            this.confirmName = lang.getString("MENUS.DELETE.CONFIRM-BUTTON.NAME", "&aConfirm");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package cz.jesuschrist69.buildsystem.config;
+
+import cz.jesuschrist69.buildsystem.manager.RoleManager;
+import lombok.Getter;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Values of settings.yml, read once when the configuration is loaded.
+ */
+@Getter
+public final class SettingsConfig {
+
+    private final boolean watchFiles;
+    private final boolean tieredWorlds;
+    private final int hotIdleMinutes;
+    private final boolean syncEnabled;
+    private final int syncInterval;
+    private final String nodeId;
+    private final List<RoleManager.RoleUser> roles;
+
+    public SettingsConfig(@NotNull ConfigurationSection settings) {
+        this.watchFiles = settings.getBoolean("CONFIG.WATCH-FILES", false);
+        this.tieredWorlds = settings.getBoolean("WORLDS.TIERED", false);
+        this.hotIdleMinutes = Math.max(1, settings.getInt("WORLDS.HOT-IDLE-MINUTES", 10));
+        this.syncEnabled = settings.getBoolean("SYNC.ENABLED", false);
+        this.syncInterval = Math.max(1, settings.getInt("SYNC.POLL-INTERVAL", 2));
+        this.nodeId = settings.getString("SYNC.NODE-ID", "");
+        List<RoleManager.RoleUser> roles = new ArrayList<>();
+        ConfigurationSection section = settings.getConfigurationSection("ROLES");
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                roles.add(new RoleManager.RoleUser(section.getConfigurationSection(key)));
+            }
+        }
+        this.roles = Collections.unmodifiableList(roles);
+    }
+}
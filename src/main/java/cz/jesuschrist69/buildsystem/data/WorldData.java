@@ -8,8 +8,10 @@ import com.grinderwolf.swm.api.world.properties.SlimeProperties;
 import com.grinderwolf.swm.api.world.properties.SlimePropertyMap;
 import cz.jesuschrist69.buildsystem.BuildSystem;
 import cz.jesuschrist69.buildsystem.component.WorldType;
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
 import cz.jesuschrist69.buildsystem.manager.WorldManager;
-import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import cz.jesuschrist69.buildsystem.manager.WorldSync;
+import cz.jesuschrist69.buildsystem.mysql.Queries;
 import cz.jesuschrist69.buildsystem.utils.FileUtils;
 import lombok.*;
 import org.bukkit.Bukkit;
@@ -20,8 +22,13 @@ import org.jetbrains.annotations.NotNull;
 import java.io.File;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 @Getter
 @Setter
@@ -29,14 +36,125 @@ import java.util.List;
 @ToString
 public class WorldData {
 
+    // Copy on write, so iterating it always goes over an unmodifiable snapshot and can be done from any thread
     @Getter
-    private static final List<WorldData> WORLDS = new ArrayList<>();
+    private static final List<WorldData> WORLDS = new CopyOnWriteArrayList<>();
+    // WORLDS by lower-case name, changed together with WORLDS while holding its lock
+    private static final Map<String, WorldData> BY_NAME = new ConcurrentHashMap<>();
+
+    // Called with the world whenever its hidden, locked or loaded state changes, possibly from async threads
+    private static final List<Consumer<WorldData>> CHANGE_LISTENERS = new CopyOnWriteArrayList<>();
+
+    // Source of revisions, every instance and every change gets a revision no other instance had
+    private static final AtomicInteger REVISIONS = new AtomicInteger();
+
+    // How many times save is tried before giving up when another writer keeps changing the world
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+    private static final LongAdder SAVE_CONFLICTS = new LongAdder();
+    private static final LongAdder FAILED_SAVES = new LongAdder();
+
+    /**
+     * This function registers a listener that is called whenever hidden, locked or loaded state of any world changes.
+     * The listener can be called from any thread.
+     *
+     * @param listener The listener to register.
+     */
+    public static void addChangeListener(@NotNull Consumer<WorldData> listener) {
+        CHANGE_LISTENERS.add(listener);
+    }
 
     public static boolean exists(@NotNull String name) {
-        for (WorldData wd : WORLDS) {
-            if (wd.getName().equalsIgnoreCase(name)) return true;
+        return find(name).isPresent();
+    }
+
+    /**
+     * This function finds the registered world with the given name
+     *
+     * @param name The name of the world, case insensitive.
+     * @return Optional<WorldData>
+     */
+    public static Optional<WorldData> find(@NotNull String name) {
+        return Optional.ofNullable(BY_NAME.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * This function creates world that is not registered in {@link #getWORLDS()}. It is used for worlds read from the
+     * database only to be shown, see {@link #promote(WorldData)}.
+     *
+     * @return WorldData - the unregistered world
+     */
+    public static WorldData detached(String owner, String name, WorldType worldType, Timestamp createdAt, boolean hidden, boolean locked, boolean loaded,
+                                     int version) {
+        WorldData world = new WorldData(owner, name, worldType, createdAt, hidden, locked, loaded, false);
+        world.version = version;
+        return world;
+    }
+
+    /**
+     * This method returns how many times a save found the world changed by another writer and had to retry.
+     *
+     * @return Long
+     */
+    public static long getSaveConflicts() {
+        return SAVE_CONFLICTS.sum();
+    }
+
+    /**
+     * This method returns how many saves gave up because the world kept changing.
+     *
+     * @return Long
+     */
+    public static long getFailedSaves() {
+        return FAILED_SAVES.sum();
+    }
+
+    /**
+     * This function registers the world in {@link #getWORLDS()}, unless a world with the same name is registered
+     * already.
+     *
+     * @param world The world to register.
+     * @return WorldData - the registered world with that name, which does not have to be the given one
+     */
+    public static WorldData promote(@NotNull WorldData world) {
+        synchronized (WORLDS) {
+            WorldData registered = BY_NAME.putIfAbsent(world.getName().toLowerCase(Locale.ROOT), world);
+            if (registered != null) return registered;
+            WORLDS.add(world);
+            return world;
+        }
+    }
+
+    /**
+     * This function registers all the worlds in {@link #getWORLDS()} at once, skipping worlds whose name is registered
+     * already. Unlike calling {@link #promote(WorldData)} for each world, the list is copied only once.
+     *
+     * @param worlds The worlds to register.
+     */
+    public static void promoteAll(@NotNull Collection<WorldData> worlds) {
+        synchronized (WORLDS) {
+            List<WorldData> added = new ArrayList<>(worlds.size());
+            for (WorldData world : worlds) {
+                if (BY_NAME.putIfAbsent(world.getName().toLowerCase(Locale.ROOT), world) == null) {
+                    added.add(world);
+                }
+            }
+            WORLDS.addAll(added);
+        }
+    }
+
+    /**
+     * This function removes the world from {@link #getWORLDS()}. The world still exists, it is only not kept in memory.
+     *
+     * @param world The world to remove.
+     */
+    public static void demote(@NotNull WorldData world) {
+        synchronized (WORLDS) {
+            // by identity, worlds are equal by value and another instance of the same world may be registered
+            String key = world.getName().toLowerCase(Locale.ROOT);
+            if (BY_NAME.get(key) != world) return;
+            BY_NAME.remove(key);
+            WORLDS.removeIf(registered -> registered == world);
         }
-        return false;
     }
 
     private final String owner;
@@ -48,11 +166,35 @@ public class WorldData {
     private boolean locked;
     private boolean loaded;
 
+    // Changed on every hidden/locked/loaded change so cached renders of this world can tell they are stale. Unique
+    // across instances, so two instances of the same world read at different times never share a revision.
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile int revision = REVISIONS.incrementAndGet();
+
+    // Version of the database row and its hidden and locked values, as last read or written by this node
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient int version;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient boolean savedHidden;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient boolean savedLocked;
+
     public WorldData(String owner, String name, WorldType worldType, Timestamp createdAt) {
         this(owner, name, worldType, createdAt, false, false, false);
     }
 
     public WorldData(String owner, String name, WorldType worldType, Timestamp createdAt, boolean hidden, boolean locked, boolean loaded) {
+        this(owner, name, worldType, createdAt, hidden, locked, loaded, true);
+    }
+
+    private WorldData(String owner, String name, WorldType worldType, Timestamp createdAt, boolean hidden, boolean locked, boolean loaded,
+                      boolean register) {
         this.owner = owner;
         this.name = name;
         this.worldType = worldType;
@@ -60,12 +202,16 @@ public class WorldData {
         this.hidden = hidden;
         this.locked = locked;
         this.loaded = loaded;
+        this.savedHidden = hidden;
+        this.savedLocked = locked;
 
-        WORLDS.add(this);
+        if (register) {
+            promote(this);
+        }
     }
 
     private boolean checkIfLoaded() {
-        this.loaded = Bukkit.getWorld(name) != null;
+        setLoaded(Bukkit.getWorld(name) != null);
         return loaded;
     }
 
@@ -73,14 +219,57 @@ public class WorldData {
      * This function toggles the hidden property of the current object.
      */
     public void toggleHidden() {
-        this.hidden = !hidden;
+        setHidden(!hidden);
     }
 
     /**
      * Toggle the locked variable.
      */
     public void toggleLock() {
-        this.locked = !locked;
+        setLocked(!locked);
+    }
+
+    /**
+     * Sets the hidden state of this world and marks it as changed.
+     *
+     * @param hidden The new hidden state.
+     */
+    public void setHidden(boolean hidden) {
+        if (this.hidden == hidden) return;
+        this.hidden = hidden;
+        changed();
+    }
+
+    /**
+     * Sets the locked state of this world and marks it as changed.
+     *
+     * @param locked The new locked state.
+     */
+    public void setLocked(boolean locked) {
+        if (this.locked == locked) return;
+        this.locked = locked;
+        changed();
+    }
+
+    /**
+     * Sets the loaded state of this world and marks it as changed.
+     *
+     * @param loaded The new loaded state.
+     */
+    public void setLoaded(boolean loaded) {
+        if (this.loaded == loaded) return;
+        this.loaded = loaded;
+        changed();
+    }
+
+    /**
+     * This function marks the world as changed and notifies all change listeners.
+     */
+    private void changed() {
+        revision = REVISIONS.incrementAndGet();
+        for (Consumer<WorldData> listener : CHANGE_LISTENERS) {
+            listener.accept(this);
+        }
     }
 
     /**
@@ -105,11 +294,12 @@ public class WorldData {
     }
 
     /**
-     * This function loads a world from a MySQL database, generates it, and teleports the player to the world's spawn location
+     * This function loads a world from the database, generates it, and teleports the player to the world's spawn location
      *
      * @param player The player to teleport
+     * @param plugin The plugin instance
      */
-    public void teleport(@NotNull Player player) {
+    public void teleport(@NotNull Player player, @NotNull BuildSystem plugin) {
         if (Bukkit.getWorld(name) != null) {
             player.teleport(Bukkit.getWorld(name).getSpawnLocation());
             return;
@@ -123,15 +313,15 @@ public class WorldData {
         propertyMap.setString(SlimeProperties.WORLD_TYPE, "flat");
 
         SlimePlugin slimePlugin = (SlimePlugin) Bukkit.getPluginManager().getPlugin("SlimeWorldManager");
-        SlimeLoader loader = slimePlugin.getLoader("mysql");
+        SlimeLoader loader = slimePlugin.getLoader(plugin.getSlimeLoader());
         try {
             SlimeWorld a = slimePlugin.loadWorld(loader, name, false, propertyMap);
             slimePlugin.generateWorld(a);
-            this.loaded = true;
+            setLoaded(true);
         } catch (WorldInUseException e) {
             try {
                 loader.unlockWorld(name);
-                teleport(player);
+                teleport(player, plugin);
             } catch (Exception ex) {
                 ex.printStackTrace();
             }
@@ -172,30 +362,146 @@ public class WorldData {
         }
 
         SlimePlugin slimePlugin = (SlimePlugin) Bukkit.getPluginManager().getPlugin("SlimeWorldManager");
-        SlimeLoader loader = slimePlugin.getLoader("mysql");
+        SlimeLoader loader = slimePlugin.getLoader(plugin.getSlimeLoader());
         try {
             loader.deleteWorld(name);
-            plugin.getMySQL().execute(new SqlBuilder.Delete("%mysql-table-prefix%" + "world_data")
-                    .where("name = '" + name + "'")
-                    .build());
+            plugin.getStorage().transaction(tx -> {
+                tx.execute(Queries.DELETE_WORLD, name);
+                plugin.getWorldSync().record(tx, name, WorldSync.Change.DELETED);
+            });
         } catch (Exception e) {
             e.printStackTrace();
         }
         FileUtils.deleteDir(new File("./" + name));
-        WORLDS.remove(this);
+        plugin.getWorldIconCache().remove(name);
+        find(name).ifPresent(WorldData::demote);
+    }
+
+    /**
+     * This function saves the world's hidden and locked status to the database off the main thread. The row is only
+     * written when nobody changed it since this node last read it. Otherwise the row is read again, values this node
+     * did not change are taken from it, and the save is retried. The result is applied to the world on the main
+     * thread, a save that failed or gave up puts back the values it tried to save.
+     *
+     * @param plugin The plugin instance
+     * @param callback Called on the main thread once the save is done, with null or the reason it failed.
+     */
+    public void save(@NotNull BuildSystem plugin, @NotNull Consumer<BuildSystemException> callback) {
+        SaveState state = new SaveState(version, savedHidden, savedLocked, hidden, locked);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            BuildSystemException error = null;
+            try {
+                write(plugin, state);
+            } catch (BuildSystemException e) {
+                error = e;
+            }
+            BuildSystemException result = error;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                apply(state, result == null);
+                callback.accept(result);
+            });
+        });
     }
 
     /**
-     * This function saves the world's hidden and locked status to the database
+     * This function writes the state to the database, retrying while another writer keeps changing the row. It blocks,
+     * so it is called asynchronously.
      *
      * @param plugin The plugin instance
+     * @param state The values to save, updated with what was saved or read.
+     */
+    private void write(@NotNull BuildSystem plugin, @NotNull SaveState state) {
+        for (int attempt = 0; attempt < MAX_SAVE_ATTEMPTS; attempt++) {
+            boolean hiddenChanged = state.hidden != state.savedHidden;
+            boolean lockedChanged = state.locked != state.savedLocked;
+            if (!hiddenChanged && !lockedChanged) {
+                return;
+            }
+            AtomicBoolean updated = new AtomicBoolean();
+            plugin.getStorage().transaction(tx -> {
+                if (tx.executeUpdate(Queries.UPDATE_WORLD_STATE, state.hidden ? 1 : 0, state.locked ? 1 : 0, name, state.version) == 1) {
+                    plugin.getWorldSync().record(tx, name, WorldSync.Change.UPDATED);
+                    updated.set(true);
+                }
+            });
+            if (updated.get()) {
+                state.version++;
+                state.savedHidden = state.hidden;
+                state.savedLocked = state.locked;
+                return;
+            }
+            SAVE_CONFLICTS.increment();
+            boolean exists = plugin.getStorage().queryFirst(Queries.SELECT_WORLD_STATE, row -> {
+                state.version = row.getInt("version");
+                state.savedHidden = row.getInt("hidden") == 1;
+                state.savedLocked = row.getInt("locked") == 1;
+                return true;
+            }, name).isPresent();
+            if (!exists) {
+                // row was deleted in the meantime
+                return;
+            }
+            // values this node did not change are taken from the row
+            if (!hiddenChanged) state.hidden = state.savedHidden;
+            if (!lockedChanged) state.locked = state.savedLocked;
+        }
+        FAILED_SAVES.increment();
+        throw new BuildSystemException("Could not save world {0}, it was changed by someone else {1} times in a row", name, MAX_SAVE_ATTEMPTS);
+    }
+
+    /**
+     * This function applies the result of a save to the world. Values changed again while the save was running are
+     * kept, they are saved by the next save.
+     *
+     * @param state The result of the save.
+     * @param saved Whether the save succeeded.
      */
-    public void save(@NotNull BuildSystem plugin) {
-        plugin.getMySQL().execute(new SqlBuilder.Update("%mysql-table-prefix%" + "world_data")
-                .columns("hidden", "locked")
-                .values(hidden ? "1" : "0", locked ? "1" : "0")
-                .where("name = '" + name+"'")
-                .build());
+    private void apply(@NotNull SaveState state, boolean saved) {
+        if (saved && state.version >= version) {
+            version = state.version;
+            savedHidden = state.savedHidden;
+            savedLocked = state.savedLocked;
+        }
+        boolean nextHidden = saved ? state.hidden : savedHidden;
+        boolean nextLocked = saved ? state.locked : savedLocked;
+        if (hidden == state.requestedHidden) setHidden(nextHidden);
+        if (locked == state.requestedLocked) setLocked(nextLocked);
+    }
+
+    /**
+     * This function takes over hidden, locked and version of the same world read from the database, unless this
+     * instance is newer
+     *
+     * @param row The world read from the database.
+     */
+    public void update(@NotNull WorldData row) {
+        if (row.version < version) return;
+        version = row.version;
+        savedHidden = row.hidden;
+        savedLocked = row.locked;
+        setHidden(row.hidden);
+        setLocked(row.locked);
+    }
+
+    private static final class SaveState {
+
+        private final boolean requestedHidden;
+        private final boolean requestedLocked;
+        private int version;
+        private boolean savedHidden;
+        private boolean savedLocked;
+        private boolean hidden;
+        private boolean locked;
+
+        private SaveState(int version, boolean savedHidden, boolean savedLocked, boolean hidden, boolean locked) {
+            this.requestedHidden = hidden;
+            this.requestedLocked = locked;
+            this.version = version;
+            this.savedHidden = savedHidden;
+            this.savedLocked = savedLocked;
+            this.hidden = hidden;
+            this.locked = locked;
+        }
     }
 
 }
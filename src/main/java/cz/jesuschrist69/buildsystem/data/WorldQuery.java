@@ -0,0 +1,207 @@
+package cz.jesuschrist69.buildsystem.data;
+
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlTemplate;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One page of world_data rows, ordered by name. Pages are addressed by the name of the last world of the previous page
+ * (keyset pagination), so reading any page costs the same no matter how deep in the list it is. All filters are pushed
+ * down to the database and served by the name primary key and the owner and (hidden, owner) indexes.
+ */
+@Getter
+public class WorldQuery {
+
+    // statements by the filters and limit used, queries by names are not cached as every list length is a new statement
+    private static final Map<Long, SqlTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final String owner;
+    private final boolean includeHidden;
+    private final String namePrefix;
+    private final Collection<String> names;
+    private final String after;
+    private final int limit;
+
+    private WorldQuery(@NotNull Builder builder) {
+        this.owner = builder.owner;
+        this.includeHidden = builder.includeHidden;
+        this.namePrefix = builder.namePrefix;
+        this.names = builder.names;
+        this.after = builder.after;
+        this.limit = builder.limit;
+    }
+
+    /**
+     * This function creates a new Builder object and returns it.
+     *
+     * @return A new instance of the Builder class.
+     */
+    public static Builder create() {
+        return new Builder();
+    }
+
+    /**
+     * This function returns the SELECT statement of the query as a template, values are bound through
+     * {@link #getParams()}. Queries with the same filters and limit share one template.
+     *
+     * @return SqlTemplate - the statement
+     */
+    public SqlTemplate toTemplate() {
+        if (names != null) {
+            return new SqlTemplate(toSql());
+        }
+        long shape = ((long) limit << 3) | (owner != null ? 1 : 0) | (includeHidden ? 2 : 0) | (namePrefix != null ? 4 : 0);
+        return TEMPLATES.computeIfAbsent(shape, key -> new SqlTemplate(toSql()));
+    }
+
+    /**
+     * This function builds the SELECT statement of the query, values are bound through {@link #getParams()}
+     *
+     * @return String - the statement
+     */
+    public String toSql() {
+        List<String> where = new ArrayList<>();
+        where.add("name > ?");
+        if (owner != null) {
+            where.add("owner = ?");
+        }
+        if (!includeHidden) {
+            where.add("hidden = 0");
+        }
+        if (namePrefix != null) {
+            where.add("name LIKE ?");
+        }
+        if (names != null) {
+            where.add(names.isEmpty() ? "1 = 0" : "name IN (" + String.join(", ", Collections.nCopies(names.size(), "?")) + ")");
+        }
+        return new SqlBuilder.Select("%mysql-table-prefix%" + "world_data")
+                .columns("*")
+                .where(where.toArray(new String[0]))
+                .orderBy("name")
+                .limit(limit)
+                .build();
+    }
+
+    /**
+     * This function returns values of the ? placeholders of {@link #toSql()}, in order
+     *
+     * @return Object[] - the values
+     */
+    public Object[] getParams() {
+        List<Object> params = new ArrayList<>();
+        params.add(after);
+        if (owner != null) {
+            params.add(owner);
+        }
+        if (namePrefix != null) {
+            params.add(escapeLike(namePrefix) + "%");
+        }
+        if (names != null) {
+            params.addAll(names);
+        }
+        return params.toArray();
+    }
+
+    /**
+     * This function escapes LIKE wildcards, so the text only matches itself
+     *
+     * @param text The text to escape.
+     * @return String - the escaped text
+     */
+    private static String escapeLike(@NotNull String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static class Builder {
+        private String owner;
+        private boolean includeHidden = true;
+        private String namePrefix;
+        private Collection<String> names;
+        private String after = "";
+        private int limit = 0;
+
+        /**
+         * This function limits the query to worlds of the given owner
+         *
+         * @param owner The name of the owner.
+         * @return The Builder object itself.
+         */
+        public Builder withOwner(String owner) {
+            this.owner = owner;
+            return this;
+        }
+
+        /**
+         * This function sets if hidden worlds are included, they are by default
+         *
+         * @param includeHidden Whether to include hidden worlds.
+         * @return The Builder object itself.
+         */
+        public Builder withHidden(boolean includeHidden) {
+            this.includeHidden = includeHidden;
+            return this;
+        }
+
+        /**
+         * This function limits the query to worlds whose name starts with the given text. Empty text is ignored.
+         *
+         * @param namePrefix The start of the world name.
+         * @return The Builder object itself.
+         */
+        public Builder withNamePrefix(String namePrefix) {
+            this.namePrefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+            return this;
+        }
+
+        /**
+         * This function limits the query to worlds with the given names
+         *
+         * @param names The names of the worlds.
+         * @return The Builder object itself.
+         */
+        public Builder withNames(@NotNull Collection<String> names) {
+            this.names = new ArrayList<>(names);
+            return this;
+        }
+
+        /**
+         * This function makes the query start after the world with the given name. Empty name starts at the beginning.
+         *
+         * @param after The name of the last world of the previous page.
+         * @return The Builder object itself.
+         */
+        public Builder withAfter(@NotNull String after) {
+            this.after = after;
+            return this;
+        }
+
+        /**
+         * This function sets the maximum number of worlds the query returns, 0 means no limit
+         *
+         * @param limit The maximum number of worlds.
+         * @return The Builder object itself.
+         */
+        public Builder withLimit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * This function returns a new WorldQuery object, using the values of the fields in this Builder object.
+         *
+         * @return A new WorldQuery object.
+         */
+        public WorldQuery build() {
+            return new WorldQuery(this);
+        }
+    }
+
+}
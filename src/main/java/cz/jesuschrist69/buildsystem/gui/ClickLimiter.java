@@ -0,0 +1,133 @@
+package cz.jesuschrist69.buildsystem.gui;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.manager.GuiManager;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how often clicks of one viewer are handled. Clicks on coalesced items are handled at most once per tick per
+ * viewer and only the latest one is kept, clicks on items with cooldown are dropped until the cooldown of their group
+ * passes.
+ */
+public class ClickLimiter {
+
+    private final BuildSystem plugin;
+
+    private final Map<UUID, PendingClick> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<String, Long>> lastAction = new ConcurrentHashMap<>();
+    private boolean flushScheduled = false;
+
+    private final LongAdder mergedClicks = new LongAdder();
+    private final LongAdder droppedClicks = new LongAdder();
+
+    public ClickLimiter(@NotNull BuildSystem plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * This function passes the click to the item, delays it or drops it, depending on the item
+     *
+     * @param player The player who clicked.
+     * @param gui The gui that was clicked.
+     * @param item The item that was clicked.
+     * @param e The click event.
+     */
+    public void dispatch(@NotNull Player player, @NotNull Gui gui, @NotNull GuiItem item, @NotNull InventoryClickEvent e) {
+        if (item.getCooldown() > 0) {
+            long now = System.currentTimeMillis();
+            Map<String, Long> actions = lastAction.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>());
+            Long last = actions.get(item.getCooldownGroup());
+            if (last != null && now - last < item.getCooldown()) {
+                e.setCancelled(true);
+                droppedClicks.increment();
+                return;
+            }
+            actions.put(item.getCooldownGroup(), now);
+        }
+
+        if (!item.isCoalesced()) {
+            item.callClick(e);
+            return;
+        }
+
+        // handler runs later, so the click has to be cancelled now
+        e.setCancelled(true);
+        if (pending.put(player.getUniqueId(), new PendingClick(player, gui, item, e)) != null) {
+            mergedClicks.increment();
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Bukkit.getScheduler().runTask(plugin, this::flush);
+        }
+    }
+
+    /**
+     * This function handles the latest pending click of every viewer whose gui is still open
+     */
+    private void flush() {
+        flushScheduled = false;
+        Iterator<PendingClick> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingClick click = iterator.next();
+            iterator.remove();
+            if (!click.player.isOnline() || GuiManager.getSession(click.player.getUniqueId()) != click.gui) {
+                droppedClicks.increment();
+                continue;
+            }
+            click.item.callClick(click.event);
+        }
+    }
+
+    /**
+     * This function removes everything stored for the player
+     *
+     * @param uuid The UUID of the player.
+     */
+    public void forget(@NotNull UUID uuid) {
+        pending.remove(uuid);
+        lastAction.remove(uuid);
+    }
+
+    /**
+     * Returns number of clicks that were replaced by a later click of the same viewer before they were handled.
+     *
+     * @return Long - number of merged clicks
+     */
+    public long getMergedClicks() {
+        return mergedClicks.sum();
+    }
+
+    /**
+     * Returns number of clicks that were not handled because of cooldown or because the gui was closed.
+     *
+     * @return Long - number of dropped clicks
+     */
+    public long getDroppedClicks() {
+        return droppedClicks.sum();
+    }
+
+    private static final class PendingClick {
+
+        private final Player player;
+        private final Gui gui;
+        private final GuiItem item;
+        private final InventoryClickEvent event;
+
+        private PendingClick(Player player, Gui gui, GuiItem item, InventoryClickEvent event) {
+            this.player = player;
+            this.gui = gui;
+            this.item = item;
+            this.event = event;
+        }
+    }
+
+}
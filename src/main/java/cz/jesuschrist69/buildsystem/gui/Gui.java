@@ -1,6 +1,8 @@
 package cz.jesuschrist69.buildsystem.gui;
 
+import cz.jesuschrist69.buildsystem.manager.GuiManager;
 import cz.jesuschrist69.buildsystem.utils.ColorUtils;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
@@ -11,20 +13,33 @@ import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.function.Consumer;
 
 @Getter
 @EqualsAndHashCode
 @ToString
 public class Gui implements InventoryHolder {
+
+    private static final Method SET_TITLE = findSetTitle();
+
     private Inventory inventory;
-    private final Map<Integer, GuiItem> items;
+    // Copies of items last sent to the inventory and title it was created with, used to send only what changed
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private ItemStack[] rendered;
+    @Getter(AccessLevel.NONE)
+    private String inventoryTitle;
+    private GuiItem[] items;
     private String title;
     private int size;
     private final Consumer<InventoryCloseEvent> onClose;
@@ -35,15 +50,22 @@ public class Gui implements InventoryHolder {
     public Gui(@NotNull Builder builder) {
         this.title = builder.title;
         this.size = builder.size;
-        this.items = builder.items;
+        this.items = builder.items == null ? new GuiItem[size]
+                : builder.items.length == size ? builder.items : Arrays.copyOf(builder.items, size);
         this.onClose = builder.onClose;
         this.onOpen = builder.onOpen;
         this.disabledClicking = builder.disabledClicking;
-        this.inventory = Bukkit.createInventory(this, size, ColorUtils.colorize(title));
-        for (int slot : items.keySet()) {
-            if (slot >= inventory.getSize()) continue;
-            inventory.setItem(slot, items.get(slot).getItem());
-        }
+    }
+
+    /**
+     * Returns the item in the specified slot.
+     *
+     * @param slot The slot of the item.
+     * @return GuiItem or null if there is no item in the slot
+     */
+    public GuiItem getItem(int slot) {
+        if (slot < 0 || slot >= items.length) return null;
+        return items[slot];
     }
 
     /**
@@ -56,7 +78,7 @@ public class Gui implements InventoryHolder {
     }
 
     public static class Builder {
-        private Map<Integer, GuiItem> items;
+        private GuiItem[] items;
         private String title;
         private int size;
         private Consumer<InventoryCloseEvent> onClose;
@@ -65,7 +87,7 @@ public class Gui implements InventoryHolder {
         private boolean disabledClicking;
 
         public Builder() {
-            this.items = new HashMap<>();
+            this.items = null;
             this.title = "Inventory";
             this.size = 9;
             this.onClose = null;
@@ -80,7 +102,7 @@ public class Gui implements InventoryHolder {
          * @return A new instance of the Builder class.
          */
         public Builder of(@NotNull Gui gui) {
-            this.items = gui.items;
+            this.items = gui.items.clone();
             this.title = gui.title;
             this.size = gui.size;
             this.onClose = gui.onClose;
@@ -89,6 +111,19 @@ public class Gui implements InventoryHolder {
             return this;
         }
 
+        /**
+         * This function copies title, size and items of the layout into the builder
+         *
+         * @param layout The layout you want to copy
+         * @return The Builder object itself.
+         */
+        public Builder withLayout(@NotNull GuiLayout layout) {
+            this.items = layout.getItems().clone();
+            this.title = layout.getTitle();
+            this.size = layout.getSize();
+            return this;
+        }
+
         /**
          * This function sets the disabledClicking variable to true and returns the builder object.
          *
@@ -107,17 +142,23 @@ public class Gui implements InventoryHolder {
          * @return The builder object itself.
          */
         public Builder setItem(int slot, @NotNull GuiItem item) {
-            items.put(slot, item);
+            if (items == null) {
+                items = new GuiItem[Math.max(size, slot + 1)];
+            } else if (slot >= items.length) {
+                items = Arrays.copyOf(items, slot + 1);
+            }
+            items[slot] = item;
             return this;
         }
 
         /**
          * `This function sets the items of the GuiInventory object to the items passed in as a parameter.`
+         * Index of the item in the array is its slot, the array is used as it is if its length equals the size of gui.
          *
          * @param items The items that will be displayed in the inventory.
          * @return The builder itself.
          */
-        public Builder withItems(@NotNull Map<Integer, GuiItem> items) {
+        public Builder withItems(@NotNull GuiItem[] items) {
             this.items = items;
             return this;
         }
@@ -176,8 +217,61 @@ public class Gui implements InventoryHolder {
         }
     }
 
+    /**
+     * This function opens the gui for the player. When the player is looking at another gui with the same size and
+     * title, its inventory is reused and only its contents are swapped, in that case no open event is called.
+     *
+     * @param player The player to open the gui for.
+     */
     public void open(@NotNull Player player) {
-        player.openInventory(inventory);
+        Gui current = GuiManager.getSession(player.getUniqueId());
+        Inventory top = player.getOpenInventory().getTopInventory();
+        if (current != null && current.inventory != null && current.inventory == top) {
+            if (current == this) {
+                return;
+            }
+            if (current.size == size && current.title.equals(title) && top.getViewers().size() == 1) {
+                this.inventory = top;
+                this.rendered = current.rendered;
+                this.inventoryTitle = current.inventoryTitle;
+                current.inventory = null;
+                current.rendered = null;
+                render();
+                GuiManager.setSession(player.getUniqueId(), this);
+                return;
+            }
+        }
+        if (inventory != null && !title.equals(inventoryTitle) && inventory.getViewers().isEmpty()) {
+            // title was changed only in views of the previous viewers
+            this.inventory = null;
+            this.rendered = null;
+        }
+        GuiManager.setSession(player.getUniqueId(), this);
+        player.openInventory(getInventory());
+    }
+
+    /**
+     * This function puts all items of the gui into its inventory, sending only slots that changed since last render
+     */
+    private void render() {
+        if (rendered == null || rendered.length != inventory.getSize()) {
+            rendered = inventory.getContents().clone();
+        }
+        for (int slot = 0; slot < rendered.length; slot++) {
+            renderSlot(slot);
+        }
+    }
+
+    /**
+     * This function puts item of the gui into the slot of its inventory, unless the same item is already there
+     *
+     * @param slot The slot to render.
+     */
+    private void renderSlot(int slot) {
+        ItemStack next = slot < items.length && items[slot] != null ? items[slot].getItem() : null;
+        if (Objects.equals(rendered[slot], next)) return;
+        rendered[slot] = next == null ? null : next.clone();
+        inventory.setItem(slot, next);
     }
 
     /**
@@ -211,8 +305,11 @@ public class Gui implements InventoryHolder {
      * @param newItem The new item to be placed in the slot.
      */
     public void updateItem(int slot, @NotNull GuiItem newItem) {
-        items.put(slot, newItem);
-        inventory.setItem(slot, newItem.getItem());
+        if (slot < 0 || slot >= items.length) return;
+        items[slot] = newItem;
+        if (inventory != null) {
+            renderSlot(slot);
+        }
     }
 
     /**
@@ -221,18 +318,59 @@ public class Gui implements InventoryHolder {
      * @param slot The slot you want to remove the item from.
      */
     public void removeItem(int slot) {
-        items.remove(slot);
-        inventory.setItem(slot, null);
+        if (slot < 0 || slot >= items.length) return;
+        items[slot] = null;
+        if (inventory != null) {
+            renderSlot(slot);
+        }
     }
 
     /**
-     * This function updates the title of the inventory and then creates a new inventory
+     * This function updates the title of the inventory. Title is changed in views of the viewers when the server
+     * supports it, otherwise a new inventory is created.
      *
      * @param title The title of the inventory.
      */
     public void updateTitle(@NotNull String title) {
+        if (title.equals(this.title)) return;
         this.title = title;
-        createNewInv();
+        if (inventory == null) return;
+        if (SET_TITLE == null || !retitle()) {
+            createNewInv();
+        }
+    }
+
+    /**
+     * This function changes the title in views of all viewers of the inventory
+     *
+     * @return Boolean - false if the title could not be changed
+     */
+    private boolean retitle() {
+        String colored = ColorUtils.colorize(title);
+        try {
+            for (HumanEntity ent : new ArrayList<>(inventory.getViewers())) {
+                InventoryView view = ent.getOpenInventory();
+                if (view.getTopInventory() == inventory) {
+                    SET_TITLE.invoke(view, colored);
+                }
+            }
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This function finds InventoryView#setTitle, which exists only on newer server versions
+     *
+     * @return Method or null if the server does not have it
+     */
+    private static Method findSetTitle() {
+        try {
+            return InventoryView.class.getMethod("setTitle", String.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
     }
 
     /**
@@ -242,6 +380,7 @@ public class Gui implements InventoryHolder {
      */
     public void updateSize(int newSize) {
         this.size = newSize;
+        this.items = Arrays.copyOf(items, newSize);
         createNewInv();
     }
 
@@ -249,40 +388,54 @@ public class Gui implements InventoryHolder {
      * This function creates a new inventory, closes the old one, and opens the new one for all viewers
      */
     private void createNewInv() {
+        if (inventory == null) return;
         List<HumanEntity> viwers = new ArrayList<>(inventory.getViewers());
-        for (HumanEntity ent : inventory.getViewers()) {
+        for (HumanEntity ent : viwers) {
             if (ent instanceof Player) {
                 ((Player) ent).closeInventory();
             }
         }
-        this.inventory = Bukkit.createInventory(this, size, ColorUtils.colorize(title));
-        for (int slot : items.keySet()) {
-            inventory.setItem(slot, items.get(slot).getItem());
-        }
+        this.inventory = null;
+        this.rendered = null;
         for (HumanEntity ent : viwers) {
             if (ent instanceof Player) {
-                ((Player) ent).openInventory(inventory);
+                open((Player) ent);
             }
         }
     }
 
     /**
-     * This function clears the inventory, then adds all the items in the items HashMap to the inventory
+     * This function puts all the items in the items array to the inventory, only changed slots are sent
      */
     public void updateItems() {
-        inventory.clear();
-        for (int item : items.keySet()) {
-            inventory.setItem(item, items.get(item).getItem());
+        if (inventory != null) {
+            render();
         }
     }
 
     /**
-     * Returns the inventory.
+     * Returns the inventory, it is created when it is needed for the first time.
      *
      * @return The inventory.
      */
     @Override
     public @NotNull Inventory getInventory() {
+        if (inventory == null) {
+            inventory = Bukkit.createInventory(this, size, ColorUtils.colorize(title));
+            inventoryTitle = title;
+            rendered = new ItemStack[size];
+            render();
+        }
         return inventory;
     }
+
+    /**
+     * Checks if the gui is shown in the given inventory, without creating the inventory.
+     *
+     * @param inventory The inventory to check.
+     * @return Boolean
+     */
+    public boolean isShownIn(Inventory inventory) {
+        return this.inventory != null && this.inventory == inventory;
+    }
 }
@@ -0,0 +1,26 @@
+package cz.jesuschrist69.buildsystem.gui;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Filler items shared by every menu and every player. They must never be modified, use
+ * {@link GuiItem.Builder#of(GuiItem)} to create a modified copy instead.
+ */
+@UtilityClass
+public class GuiFillers {
+
+    public static final GuiItem GRAY_PANE = GuiItem.create()
+            .withItem(new ItemStack(Material.STAINED_GLASS_PANE, 1, (short) 7))
+            .withName("&c")
+            .withClickEvent(GuiItem.CANCEL_CLICK)
+            .build();
+
+    public static final GuiItem WHITE_PANE = GuiItem.create()
+            .withItem(new ItemStack(Material.STAINED_GLASS_PANE))
+            .withName("&c")
+            .withClickEvent(GuiItem.CANCEL_CLICK)
+            .build();
+
+}
@@ -1,7 +1,7 @@
 package cz.jesuschrist69.buildsystem.gui;
 
+import cz.jesuschrist69.buildsystem.cache.type.SkullCache;
 import cz.jesuschrist69.buildsystem.utils.ColorUtils;
-import dev.dbassett.skullcreator.SkullCreator;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
@@ -11,7 +11,6 @@ import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.inventory.meta.SkullMeta;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -24,12 +23,35 @@ import java.util.function.Consumer;
 @ToString
 public class GuiItem {
 
+    /**
+     * Click handler that only cancels the click, shared by every item that does nothing when clicked.
+     */
+    public static final Consumer<InventoryClickEvent> CANCEL_CLICK = event -> event.setCancelled(true);
+
+    // Resolved player heads shared by all items, the builder only ever uses copies
+    private static final SkullCache SKULL_CACHE = new SkullCache(512);
+
     private ItemStack item;
     private Consumer<InventoryClickEvent> onClick;
+    private final boolean coalesced;
+    private final String cooldownGroup;
+    private final long cooldown;
 
     public GuiItem(@NotNull Builder builder) {
         this.item = builder.item;
         this.onClick = builder.onClick;
+        this.coalesced = builder.coalesced;
+        this.cooldownGroup = builder.cooldownGroup;
+        this.cooldown = builder.cooldown;
+    }
+
+    /**
+     * This method returns the cache of resolved player heads.
+     *
+     * @return The SkullCache object.
+     */
+    public static SkullCache getSkullCache() {
+        return SKULL_CACHE;
     }
 
     /**
@@ -44,10 +66,16 @@ public class GuiItem {
     public static class Builder {
         private ItemStack item;
         private Consumer<InventoryClickEvent> onClick;
+        private boolean coalesced;
+        private String cooldownGroup;
+        private long cooldown;
 
         public Builder() {
             this.item = null;
             this.onClick = null;
+            this.coalesced = false;
+            this.cooldownGroup = null;
+            this.cooldown = 0;
         }
 
         /**
@@ -57,8 +85,12 @@ public class GuiItem {
          * @return The builder object.
          */
         public Builder of(@NotNull GuiItem item) {
-            this.item = item.item;
+            // copy so that modifying the builder never changes items shared between menus
+            this.item = item.item == null ? null : item.item.clone();
             this.onClick = item.onClick;
+            this.coalesced = item.coalesced;
+            this.cooldownGroup = item.cooldownGroup;
+            this.cooldown = item.cooldown;
             return this;
         }
 
@@ -154,10 +186,7 @@ public class GuiItem {
             if (owner.length() > 16) {
                 return withBase64Skull(owner);
             }
-            SkullMeta meta = (SkullMeta) this.item.getItemMeta();
-            meta.setOwner(owner);
-            this.item.setItemMeta(meta);
-            return this;
+            return withHead(SKULL_CACHE.getOwnerHead(owner));
         }
 
         /**
@@ -169,7 +198,26 @@ public class GuiItem {
         public Builder withBase64Skull(@NotNull String base64) {
             assert this.item != null : "Item must be set before setting base64 skull.";
             assert this.item.getType() == Material.SKULL_ITEM && item.getData().getData() == 3 : "Item must be a player head to set base64 skull.";
-            this.item = SkullCreator.itemWithBase64(this.item, base64);
+            return withHead(SKULL_CACHE.getTextureHead(base64));
+        }
+
+        /**
+         * This function replaces the item with the given head, keeping name, lore, flags, enchantments and amount of
+         * the current item.
+         *
+         * @param head The copy of the cached head.
+         * @return The builder object.
+         */
+        private Builder withHead(@NotNull ItemStack head) {
+            ItemMeta current = this.item.getItemMeta();
+            ItemMeta meta = head.getItemMeta();
+            if (current.hasDisplayName()) meta.setDisplayName(current.getDisplayName());
+            if (current.hasLore()) meta.setLore(current.getLore());
+            meta.addItemFlags(current.getItemFlags().toArray(new ItemFlag[0]));
+            head.setItemMeta(meta);
+            head.setAmount(this.item.getAmount());
+            head.addUnsafeEnchantments(this.item.getEnchantments());
+            this.item = head;
             return this;
         }
 
@@ -225,6 +273,32 @@ public class GuiItem {
             return this;
         }
 
+        /**
+         * Clicks on this item are handled at most once per tick for every viewer. When the viewer clicks more times
+         * during one tick, only the last click is handled.
+         *
+         * @return The Builder object itself.
+         */
+        public Builder withCoalescedClicks() {
+            this.coalesced = true;
+            return this;
+        }
+
+        /**
+         * Clicks on this item are dropped when the viewer clicked an item of the same cooldown group less than the
+         * given time ago.
+         *
+         * @param group The cooldown group, for example the action the item does.
+         * @param millis The cooldown in milliseconds.
+         * @return The Builder object itself.
+         */
+        public Builder withCooldown(@NotNull String group, long millis) {
+            assert millis >= 0 : "Cooldown must not be negative.";
+            this.cooldownGroup = group;
+            this.cooldown = millis;
+            return this;
+        }
+
         /**
          * This function removes a line from the lore of the item
          *
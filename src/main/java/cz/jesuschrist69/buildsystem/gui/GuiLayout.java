@@ -0,0 +1,30 @@
+package cz.jesuschrist69.buildsystem.gui;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Prebuilt content of a menu that can be shared by many players. Items of a layout must not depend on the player who
+ * clicks them and must never be modified, {@link Gui.Builder#withLayout(GuiLayout)} copies them into a new gui.
+ */
+@Getter
+public class GuiLayout {
+
+    private final String title;
+    private final GuiItem[] items;
+
+    public GuiLayout(@NotNull String title, @NotNull GuiItem[] items) {
+        this.title = title;
+        this.items = items;
+    }
+
+    /**
+     * Returns the size of the layout.
+     *
+     * @return Integer - number of slots
+     */
+    public int getSize() {
+        return items.length;
+    }
+
+}
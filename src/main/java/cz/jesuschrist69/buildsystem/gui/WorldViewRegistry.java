@@ -0,0 +1,144 @@
+package cz.jesuschrist69.buildsystem.gui;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.manager.GuiManager;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps track of which viewers show which worlds in their open gui. When a world changes, only its slot is patched in
+ * the guis that show it, at most once per {@link #REFRESH_INTERVAL} milliseconds for every viewer.
+ */
+public class WorldViewRegistry {
+
+    private static final long REFRESH_INTERVAL = 250;
+
+    private final BuildSystem plugin;
+
+    // world name -> viewers showing the world
+    private final Map<String, Set<UUID>> viewersByWorld = new ConcurrentHashMap<>();
+    private final Map<UUID, View> views = new ConcurrentHashMap<>();
+
+    public WorldViewRegistry(@NotNull BuildSystem plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * This function registers the worlds shown in the gui of the viewer, replacing anything registered for the viewer
+     * before.
+     *
+     * @param player The viewer.
+     * @param gui The gui that shows the worlds.
+     * @param slots The slot of every shown world, keyed by world name.
+     * @param itemFactory Builds the item of a world when it changes.
+     */
+    public void watch(@NotNull Player player, @NotNull Gui gui, @NotNull Map<String, Integer> slots,
+                      @NotNull Function<WorldData, GuiItem> itemFactory) {
+        UUID uuid = player.getUniqueId();
+        forget(uuid);
+        View view = new View(gui, new HashMap<>(slots), itemFactory);
+        views.put(uuid, view);
+        for (String world : view.slots.keySet()) {
+            viewersByWorld.computeIfAbsent(world, name -> ConcurrentHashMap.newKeySet()).add(uuid);
+        }
+    }
+
+    /**
+     * This function removes everything registered for the viewer
+     *
+     * @param uuid The UUID of the viewer.
+     */
+    public void forget(@NotNull UUID uuid) {
+        View view = views.remove(uuid);
+        if (view == null) return;
+        for (String world : view.slots.keySet()) {
+            viewersByWorld.computeIfPresent(world, (name, viewers) -> {
+                viewers.remove(uuid);
+                return viewers.isEmpty() ? null : viewers;
+            });
+        }
+    }
+
+    /**
+     * This function marks the world as changed for all viewers that show it and schedules their refresh. It can be
+     * called from any thread.
+     *
+     * @param world The world that changed.
+     */
+    public void worldChanged(@NotNull WorldData world) {
+        Set<UUID> viewers = viewersByWorld.get(world.getName());
+        if (viewers == null) return;
+        for (UUID uuid : viewers) {
+            View view = views.get(uuid);
+            if (view == null) continue;
+            view.dirty.put(world.getName(), world);
+            schedule(uuid, view);
+        }
+    }
+
+    /**
+     * This function schedules refresh of the viewer, unless one is scheduled already
+     *
+     * @param uuid The UUID of the viewer.
+     * @param view The view of the viewer.
+     */
+    private void schedule(@NotNull UUID uuid, @NotNull View view) {
+        synchronized (view) {
+            if (view.scheduled) return;
+            view.scheduled = true;
+        }
+        long wait = view.lastRefresh + REFRESH_INTERVAL - System.currentTimeMillis();
+        long ticks = wait <= 0 ? 1 : (wait + 49) / 50;
+        Bukkit.getScheduler().runTaskLater(plugin, () -> refresh(uuid, view), ticks);
+    }
+
+    /**
+     * This function patches slots of all changed worlds in the gui of the viewer
+     *
+     * @param uuid The UUID of the viewer.
+     * @param view The view to refresh.
+     */
+    private void refresh(@NotNull UUID uuid, @NotNull View view) {
+        synchronized (view) {
+            view.scheduled = false;
+        }
+        if (views.get(uuid) != view) return;
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null || GuiManager.getSession(uuid) != view.gui) {
+            forget(uuid);
+            return;
+        }
+        view.lastRefresh = System.currentTimeMillis();
+        for (String name : view.dirty.keySet()) {
+            WorldData world = view.dirty.remove(name);
+            Integer slot = view.slots.get(name);
+            if (world != null && slot != null) {
+                view.gui.updateItem(slot, view.itemFactory.apply(world));
+            }
+        }
+    }
+
+    private static final class View {
+
+        private final Gui gui;
+        private final Map<String, Integer> slots;
+        private final Function<WorldData, GuiItem> itemFactory;
+        // keyed by name, WorldData hash code changes with its state
+        private final Map<String, WorldData> dirty = new ConcurrentHashMap<>();
+        private volatile long lastRefresh;
+        private boolean scheduled;
+
+        private View(Gui gui, Map<String, Integer> slots, Function<WorldData, GuiItem> itemFactory) {
+            this.gui = gui;
+            this.slots = slots;
+            this.itemFactory = itemFactory;
+        }
+    }
+
+}
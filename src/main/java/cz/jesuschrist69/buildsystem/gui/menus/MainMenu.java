@@ -8,19 +8,24 @@ import com.grinderwolf.swm.api.world.properties.SlimeProperties;
 import com.grinderwolf.swm.api.world.properties.SlimePropertyMap;
 import cz.jesuschrist69.buildsystem.BuildSystem;
 import cz.jesuschrist69.buildsystem.component.WorldType;
+import cz.jesuschrist69.buildsystem.config.ButtonConfig;
+import cz.jesuschrist69.buildsystem.config.MenusConfig;
 import cz.jesuschrist69.buildsystem.data.WorldData;
 import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
 import cz.jesuschrist69.buildsystem.gui.Gui;
+import cz.jesuschrist69.buildsystem.gui.GuiFillers;
 import cz.jesuschrist69.buildsystem.gui.GuiItem;
+import cz.jesuschrist69.buildsystem.gui.GuiLayout;
+import cz.jesuschrist69.buildsystem.lang.Message;
+import cz.jesuschrist69.buildsystem.manager.MessageManager;
 import cz.jesuschrist69.buildsystem.manager.RoleManager;
 import cz.jesuschrist69.buildsystem.manager.WorldManager;
-import cz.jesuschrist69.buildsystem.mysql.MySQL;
-import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
-import cz.jesuschrist69.buildsystem.utils.ColorUtils;
+import cz.jesuschrist69.buildsystem.manager.WorldSync;
+import cz.jesuschrist69.buildsystem.mysql.Storage;
+import cz.jesuschrist69.buildsystem.mysql.Queries;
 import cz.jesuschrist69.buildsystem.utils.FileUtils;
 import net.wesjd.anvilgui.AnvilGUI;
 import org.bukkit.*;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.inventory.ItemStack;
@@ -34,48 +39,64 @@ import java.util.*;
 
 public final class MainMenu {
 
+    // minimal time in milliseconds between two teleport, create or delete clicks of one player
+    private static final long ACTION_COOLDOWN = 1000;
+    // worlds shown at once in the world list, scrolling moves by one row of 8
+    private static final int PAGE_SIZE = 48;
+
     private MainMenu() {
         throw new BuildSystemException("Tried to instantiate utility class.");
     }
 
     /**
-     * This method creates a GUI with a bunch of items in it
+     * This method opens the main menu. Menu is built only once for every combination of permissions and lang.yml version,
+     * opening it later just copies the cached layout.
      *
      * @param player The player who is opening the GUI
      * @param plugin The plugin instance
      */
     public static void open(@NotNull Player player, @NotNull BuildSystem plugin) {
-        Map<Integer, GuiItem> items = new HashMap<>();
-        Optional<YamlConfiguration> langFile = plugin.getFileCache().get("lang.yml");
-        if (!langFile.isPresent()) {
-            throw new BuildSystemException("Could not open main menu for player {0} because file lang.yml is missing!", player.getName());
-        }
-        YamlConfiguration lang = langFile.get();
+        int mask = plugin.getRoleManager().getPermissionMask(player);
+        GuiLayout layout = plugin.getMenuCache().getLayout(mask, plugin.getMessageManager().getVersion(),
+                m -> buildMainMenu(plugin, m));
 
-        for (int i = 0; i < 36; i++) {
-            items.put(i, GuiItem.create().withItem(new ItemStack(Material.STAINED_GLASS_PANE, 1, (short) 7))
-                    .withName("&c")
-                    .withClickEvent(event -> event.setCancelled(true))
-                    .build());
-        }
+        Gui gui = Gui.create()
+                .withLayout(layout)
+                .withDisabledClicking()
+                .build();
 
-        RoleManager roleManager = plugin.getRoleManager();
+        gui.open(player);
+    }
 
-        items.put(11, GuiItem.create()
+    /**
+     * This method builds the main menu layout for players with the given permissions. Items of the layout are shared
+     * by every player with the same permissions, so they must not capture the player.
+     *
+     * @param plugin The plugin instance
+     * @param mask The permission mask of players the layout is built for
+     * @return The main menu layout
+     */
+    private static GuiLayout buildMainMenu(@NotNull BuildSystem plugin, int mask) {
+        GuiItem[] items = new GuiItem[3 * 9];
+        MenusConfig.Main menu = plugin.getConfigManager().getSnapshot().getMenus().getMain();
+
+        Arrays.fill(items, GuiFillers.GRAY_PANE);
+
+        items[11] = GuiItem.create()
                 .withItem(new ItemStack(Material.CHEST))
-                .withName(lang.getString("MENUS.MAIN.ALL-WORLDS.NAME", "&eWorld List"))
-                .withLore(lang.getStringList("MENUS.MAIN.ALL-WORLDS.LORE"))
+                .withName(menu.getAllWorlds().getName())
+                .withLore(menu.getAllWorlds().getLore())
                 .withClickEvent(event -> {
                     event.setCancelled(true);
-                    openWorldList(player, plugin, 0, null);
+                    openWorldList((Player) event.getWhoClicked(), plugin, 0, null);
                 })
-                .build());
+                .build();
 
-        if (roleManager.hasPermission(player, RoleManager.Permission.SEARCH_WORLD)) {
-            items.put(13, GuiItem.create()
+        if ((mask & (1 << RoleManager.Permission.SEARCH_WORLD.ordinal())) != 0) {
+            items[13] = GuiItem.create()
                     .withItem(new ItemStack(Material.COMPASS))
-                    .withName(lang.getString("MENUS.MAIN.SEARCH-ITEM.NAME", "&eWorld Search"))
-                    .withLore(lang.getStringList("MENUS.MAIN.SEARCH-ITEM.LORE"))
+                    .withName(menu.getSearch().getName())
+                    .withLore(menu.getSearch().getLore())
                     .withClickEvent(event -> {
                         event.setCancelled(true);
                         new AnvilGUI.Builder()
@@ -85,29 +106,22 @@ public final class MainMenu {
                                     openWorldList(p, plugin, 0, text);
                                     return AnvilGUI.Response.close();
                                 })
-                                .open(player);
+                                .open((Player) event.getWhoClicked());
                     })
-                    .build());
+                    .build();
         }
 
-        items.put(15, GuiItem.create()
+        items[15] = GuiItem.create()
                 .withItem(new ItemStack(Material.EMERALD))
-                .withName(lang.getString("MENUS.MAIN.CREATE-ITEM.NAME", "&aCreate New World"))
-                .withLore(lang.getStringList("MENUS.MAIN.CREATE-ITEM.LORE"))
+                .withName(menu.getCreate().getName())
+                .withLore(menu.getCreate().getLore())
                 .withClickEvent(event -> {
                     event.setCancelled(true);
-                    createWorldMenu(player, plugin, "", WorldType.EMPTY);
+                    createWorldMenu((Player) event.getWhoClicked(), plugin, "", WorldType.EMPTY);
                 })
-                .build());
-
-        Gui gui = Gui.create()
-                .withItems(items)
-                .withTitle(lang.getString("MENUS.MAIN.TITLE", "&2&lBuild&f&lSystem"))
-                .withSize(3 * 9)
-                .withDisabledClicking()
                 .build();
 
-        gui.open(player);
+        return new GuiLayout(menu.getTitle(), items);
     }
 
     /**
@@ -119,35 +133,31 @@ public final class MainMenu {
      * @param generator The type of world to create.
      */
     private static void createWorldMenu(@NotNull Player player, @NotNull BuildSystem plugin, @NotNull String name, @NotNull WorldType generator) {
-        Map<Integer, GuiItem> items = new HashMap<>();
-        Optional<YamlConfiguration> langFile = plugin.getFileCache().get("lang.yml");
-        if (!langFile.isPresent()) {
-            throw new BuildSystemException("Could not open create world menu for player {0} because file lang.yml is missing!", player.getName());
-        }
-        YamlConfiguration lang = langFile.get();
+        GuiItem[] items = new GuiItem[4 * 9];
+        MenusConfig.Create menu = plugin.getConfigManager().getSnapshot().getMenus().getCreate();
         SlimePlugin slimePlugin = (SlimePlugin) Bukkit.getPluginManager().getPlugin("SlimeWorldManager");
         try {
-            if (slimePlugin.getLoader("mysql").worldExists(name)) {
+            if (slimePlugin.getLoader(plugin.getSlimeLoader()).worldExists(name)) {
                 createWorldMenu(player, plugin, "", generator);
             }
         } catch (Exception ignored) {
         }
 
-        items.put(10, GuiItem.create()
+        ButtonConfig generatorButton = generator == WorldType.FLAT ? menu.getFlatGenerator() : menu.getEmptyGenerator();
+        items[10] = GuiItem.create()
                 .withItem(new ItemStack(generator == WorldType.FLAT ? Material.GRASS : Material.BEDROCK))
-                .withName(lang.getString("MENUS.CREATE." + (generator == WorldType.FLAT ? "FLAT" : "EMPTY") + "-GENERATOR.NAME"))
-                .withLore(lang.getStringList("MENUS.CREATE." + (generator == WorldType.FLAT ? "FLAT" : "EMPTY") + "-GENERATOR.LORE"))
+                .withName(generatorButton.getName())
+                .withLore(generatorButton.getLore())
                 .withClickEvent(event -> {
                     event.setCancelled(true);
                     createWorldMenu(player, plugin, name, generator == WorldType.EMPTY ? WorldType.FLAT : WorldType.EMPTY);
                 })
-                .build());
+                .build();
 
-        items.put(13, GuiItem.create()
+        items[13] = GuiItem.create()
                 .withItem(new ItemStack(Material.NAME_TAG))
-                .withName(lang.getString("MENUS.CREATE.WORLD-NAME.NAME", "&eWorld Name: &6%world-name%")
-                        .replace("%world-name%", name.equals("") ? "&cNOT SET" : name))
-                .withLore(lang.getStringList("MENUS.CREATE.WORLD-NAME.LORE"))
+                .withName(plugin.getMessageManager().format(Message.CREATE_WORLD_NAME, name.equals("") ? "&cNOT SET" : name))
+                .withLore(menu.getWorldNameLore())
                 .withClickEvent(event -> {
                     event.setCancelled(true);
                     new AnvilGUI.Builder()
@@ -162,23 +172,31 @@ public final class MainMenu {
                             })
                             .open(player);
                 })
-                .build());
+                .build();
 
-        items.put(16, GuiItem.create()
+        ButtonConfig createButton = name.equals("") ? menu.getCreateButtonDisabled() : menu.getCreateButton();
+        items[16] = GuiItem.create()
                 .withItem(new ItemStack(name.equals("") ? Material.BARRIER : Material.EMERALD))
-                .withName(lang.getString("MENUS.CREATE.CREATE-BTN" + (name.equals("") ? "-DISABLED" : "") + ".NAME"))
-                .withLore(lang.getStringList("MENUS.CREATE.CREATE-BTN" + (name.equals("") ? "-DISABLED" : "") + ".LORE"))
+                .withName(createButton.getName())
+                .withLore(createButton.getLore())
+                .withCooldown("create", ACTION_COOLDOWN)
                 .withClickEvent(event -> {
                     event.setCancelled(true);
+                    // the world is not created when its row could not be written
+                    if (!name.equals("") && !plugin.getStorage().isConnected()) {
+                        player.closeInventory();
+                        plugin.getMessageManager().send(player, Message.DATABASE_UNAVAILABLE);
+                        return;
+                    }
                     if (!name.equals("")) {
-                        SlimeLoader loader = slimePlugin.getLoader("mysql");
+                        SlimeLoader loader = slimePlugin.getLoader(plugin.getSlimeLoader());
                         SlimePropertyMap propertyMap = new SlimePropertyMap();
                         propertyMap.setString(SlimeProperties.ENVIRONMENT, "normal");
                         propertyMap.setBoolean(SlimeProperties.ALLOW_ANIMALS, false);
                         propertyMap.setBoolean(SlimeProperties.ALLOW_MONSTERS, false);
                         propertyMap.setBoolean(SlimeProperties.PVP, false);
                         propertyMap.setString(SlimeProperties.WORLD_TYPE, "flat");
-                        MySQL mySQL = plugin.getMySQL();
+                        Storage storage = plugin.getStorage();
                         if (generator == WorldType.EMPTY) {
                             try {
                                 player.closeInventory();
@@ -190,10 +208,10 @@ public final class MainMenu {
                                         map.getInt(SlimeProperties.SPAWN_Z));
 
                                 player.teleport(spawn);
-                                mySQL.execute(new SqlBuilder.Insert("%mysql-table-prefix%" + "world_data")
-                                        .columns("name", "locked", "hidden", "owner", "created_at", "world_type")
-                                        .values(name, "0", "0", player.getName(), Timestamp.valueOf(LocalDateTime.now()).toString(), "EMPTY")
-                                        .build());
+                                storage.transaction(tx -> {
+                                    tx.execute(Queries.INSERT_WORLD, name, 0, 0, player.getName(), Timestamp.valueOf(LocalDateTime.now()), "EMPTY");
+                                    plugin.getWorldSync().record(tx, name, WorldSync.Change.CREATED);
+                                });
                                 new WorldData(player.getName(), name, WorldType.EMPTY, Timestamp.valueOf(LocalDateTime.now()), false, false, true);
                             } catch (WorldAlreadyExistsException | IOException e) {
                                 throw new RuntimeException(e);
@@ -212,31 +230,31 @@ public final class MainMenu {
                                 throw new RuntimeException(e);
                             } finally {
                                 player.teleport(w.getSpawnLocation());
-                                mySQL.execute(new SqlBuilder.Insert("%mysql-table-prefix%" + "world_data")
-                                        .columns("name", "locked", "hidden", "owner", "created_at", "world_type")
-                                        .values(name, "0", "0", player.getName(), Timestamp.valueOf(LocalDateTime.now()).toString(), "FLAT")
-                                        .build());
+                                storage.transaction(tx -> {
+                                    tx.execute(Queries.INSERT_WORLD, name, 0, 0, player.getName(), Timestamp.valueOf(LocalDateTime.now()), "FLAT");
+                                    plugin.getWorldSync().record(tx, name, WorldSync.Change.CREATED);
+                                });
                                 new WorldData(player.getName(), name, WorldType.FLAT, Timestamp.valueOf(LocalDateTime.now()), false, false, true);
                                 FileUtils.deleteDir(new File("./" + name));
                             }
                         }
                     }
                 })
-                .build());
+                .build();
 
-        items.put(31, GuiItem.create()
+        items[31] = GuiItem.create()
                 .withItem(new ItemStack(Material.REDSTONE))
-                .withName(lang.getString("MENUS.CREATE.BACK-BTN.NAME", "&cGo Back"))
-                .withLore(lang.getStringList("MENUS.CREATE.BACK-BTN.LORE"))
+                .withName(menu.getBack().getName())
+                .withLore(menu.getBack().getLore())
                 .withClickEvent(event -> {
                     event.setCancelled(true);
                     open(player, plugin);
                 })
-                .build());
+                .build();
 
         Gui gui = Gui.create()
                 .withItems(items)
-                .withTitle(lang.getString("MENUS.CREATE.TITLE", "&aCreate new world..."))
+                .withTitle(menu.getTitle())
                 .withSize(4 * 9)
                 .withDisabledClicking()
                 .build();
@@ -245,7 +263,8 @@ public final class MainMenu {
     }
 
     /**
-     * This method creates a GUI with a list of worlds, and when you click on a world, it teleports you to it
+     * This method opens list of worlds the player can see. Searching is done off the main thread, the list is opened
+     * once the search finishes.
      *
      * @param player The player who is opening the GUI
      * @param plugin The plugin instance
@@ -253,108 +272,133 @@ public final class MainMenu {
      * @param search The search query
      */
     private static void openWorldList(@NotNull Player player, @NotNull BuildSystem plugin, int scrollPos, String search) {
-        RoleManager roleManager = plugin.getRoleManager();
-        Map<Integer, GuiItem> items = new HashMap<>();
-        Optional<YamlConfiguration> langFile = plugin.getFileCache().get("lang.yml");
-        if (!langFile.isPresent()) {
-            throw new BuildSystemException("Could not open world list menu for player {0} because file lang.yml is missing!", player.getName());
+        if (plugin.getWorldCatalog().isTiered()) {
+            openWorldPage(player, plugin, search, new ArrayDeque<>(), "");
+            return;
+        }
+        if (search != null && !search.equalsIgnoreCase("")) {
+            WorldManager.searchWorlds(plugin, player, search, worlds -> renderWorldList(player, plugin, scrollPos, worlds));
+            return;
         }
-        YamlConfiguration lang = langFile.get();
-        List<WorldData> worlds = WorldManager.getApplicableWorlds(plugin, player, search);
+        renderWorldList(player, plugin, scrollPos, WorldManager.getApplicableWorlds(plugin, player, null));
+    }
+
+    /**
+     * This method opens one page of worlds read from the database, it is used in tiered mode instead of
+     * {@link #renderWorldList}. The page starts after the given world, names the previous pages started after are kept
+     * in the anchor stack of the viewer, so scrolling up does not have to count rows.
+     *
+     * @param player The player who is opening the GUI
+     * @param plugin The plugin instance
+     * @param search The start of world names the player searches for
+     * @param anchors Names the previous pages started after, the nearest on top
+     * @param after The name of the world the page starts after, empty for the first page
+     */
+    private static void openWorldPage(@NotNull Player player, @NotNull BuildSystem plugin, String search,
+                                      @NotNull Deque<String> anchors, @NotNull String after) {
+        // one world more than shown, to know whether there is a next page
+        WorldManager.searchPage(plugin, player, search, after, PAGE_SIZE + 1, page -> {
+            Runnable previous = null;
+            if (!anchors.isEmpty()) {
+                previous = () -> {
+                    Deque<String> back = new ArrayDeque<>(anchors);
+                    openWorldPage(player, plugin, search, back, back.pop());
+                };
+            }
+            Runnable next = null;
+            if (page.size() > PAGE_SIZE) {
+                next = () -> {
+                    Deque<String> forward = new ArrayDeque<>(anchors);
+                    forward.push(after);
+                    openWorldPage(player, plugin, search, forward, page.get(7).getName());
+                };
+            }
+            renderWorlds(player, plugin, page.subList(0, Math.min(PAGE_SIZE, page.size())), previous, next);
+        });
+    }
+
+    /**
+     * This method creates a GUI with a list of worlds, and when you click on a world, it teleports you to it
+     *
+     * @param player The player who is opening the GUI
+     * @param plugin The plugin instance
+     * @param scrollPos The page number.
+     * @param worlds The worlds to list
+     */
+    private static void renderWorldList(@NotNull Player player, @NotNull BuildSystem plugin, int scrollPos, @NotNull List<WorldData> worlds) {
+        int offset = scrollPos * 8;
+        List<WorldData> visible = worlds.subList(Math.min(offset, worlds.size()), Math.min(offset + PAGE_SIZE, worlds.size()));
+        Runnable previous = scrollPos > 0 ? () -> renderWorldList(player, plugin, scrollPos - 1, worlds) : null;
+        Runnable next = worlds.size() > PAGE_SIZE + offset ? () -> renderWorldList(player, plugin, scrollPos + 1, worlds) : null;
+        renderWorlds(player, plugin, visible, previous, next);
+    }
+
+    /**
+     * This method opens the world list GUI with the given worlds
+     *
+     * @param player The player who is opening the GUI
+     * @param plugin The plugin instance
+     * @param worlds The worlds to show, at most {@link #PAGE_SIZE}
+     * @param previous Scrolls up, null when the list is at the top
+     * @param next Scrolls down, null when the list is at the bottom
+     */
+    private static void renderWorlds(@NotNull Player player, @NotNull BuildSystem plugin, @NotNull List<WorldData> worlds,
+                                     Runnable previous, Runnable next) {
+        GuiItem[] items = new GuiItem[6 * 9];
+        MenusConfig.WorldList menu = plugin.getConfigManager().getSnapshot().getMenus().getWorldList();
 
-        if (scrollPos > 0) {
-            items.put(0, GuiItem.create()
+        if (previous != null) {
+            items[0] = GuiItem.create()
                     .withItem(new ItemStack(Material.STAINED_GLASS_PANE, 1, (short) 4))
-                    .withName(lang.getString("MENUS.ALL-WORLD-LIST.PREVIOUS-PAGE-BUTTON.NAME", "&aScroll Up"))
-                    .withLore(lang.getStringList("MENUS.ALL-WORLD-LIST.PREVIOUS-PAGE-BUTTON.LORE"))
+                    .withName(menu.getPreviousPage().getName())
+                    .withLore(menu.getPreviousPage().getLore())
+                    .withCoalescedClicks()
                     .withClickEvent(event -> {
                         event.setCancelled(true);
-                        openWorldList(player, plugin, scrollPos - 1, search);
+                        previous.run();
                     })
-                    .build());
+                    .build();
         } else {
-            items.put(0, GuiItem.create()
-                    .withItem(new ItemStack(Material.STAINED_GLASS_PANE))
-                    .withName("&c")
-                    .withClickEvent(event -> {
-                        event.setCancelled(true);
-                    })
-                    .build());
+            items[0] = GuiFillers.WHITE_PANE;
         }
 
         for (int i = 1; i <= 4; i++) {
-            int slot = i * 9;
-            items.put(slot, GuiItem.create()
-                    .withItem(new ItemStack(Material.STAINED_GLASS_PANE))
-                    .withName("&c")
-                    .withClickEvent(event -> {
-                        event.setCancelled(true);
-                    })
-                    .build());
+            items[i * 9] = GuiFillers.WHITE_PANE;
         }
 
-        items.put(18, GuiItem.create()
+        items[18] = GuiItem.create()
                 .withItem(new ItemStack(Material.BARRIER))
-                .withName(lang.getString("MENUS.ALL-WORLD-LIST.BACK-BUTTON.NAME", "&cGo Back"))
-                .withLore(lang.getStringList("MENUS.ALL-WORLD-LIST.BACK-BUTTON.LORE"))
+                .withName(menu.getBack().getName())
+                .withLore(menu.getBack().getLore())
                 .withClickEvent(event -> {
                     event.setCancelled(true);
                     open(player, plugin);
                 })
-                .build());
+                .build();
 
-        if (worlds.size() > 48 + (scrollPos * 8)) {
-            items.put(45, GuiItem.create()
+        if (next != null) {
+            items[45] = GuiItem.create()
                     .withItem(new ItemStack(Material.STAINED_GLASS_PANE, 1, (short) 5))
-                    .withName(lang.getString("MENUS.ALL-WORLD-LIST.NEXT-PAGE-BUTTON.NAME", "&eScroll Down"))
-                    .withLore(lang.getStringList("MENUS.ALL-WORLD-LIST.NEXT-PAGE-BUTTON.LORE"))
+                    .withName(menu.getNextPage().getName())
+                    .withLore(menu.getNextPage().getLore())
+                    .withCoalescedClicks()
                     .withClickEvent(event -> {
                         event.setCancelled(true);
-                        openWorldList(player, plugin, scrollPos + 1, search);
+                        next.run();
                     })
-                    .build());
+                    .build();
         } else {
-            items.put(45, GuiItem.create()
-                    .withItem(new ItemStack(Material.STAINED_GLASS_PANE))
-                    .withName("&c")
-                    .withClickEvent(event -> {
-                        event.setCancelled(true);
-                    })
-                    .build());
+            items[45] = GuiFillers.WHITE_PANE;
         }
 
+        Map<String, Integer> worldSlots = new HashMap<>();
         int slot = 0;
         for (int i = 1; i < 54; i++) {
             if (i % 9 == 0) continue;
-            int offset = scrollPos * 8;
-            if (offset + slot >= worlds.size()) break;
-            WorldData w = worlds.get(offset + slot);
-            items.put(i, GuiItem.create()
-                    .withItem(new ItemStack(w.getWorldType() == WorldType.EMPTY ? Material.BEDROCK : Material.GRASS))
-                    .withName(lang.getString("MENUS.ALL-WORLD-LIST.WORLD.NAME", "&f%world-owner%&7's world")
-                            .replace("%world-owner%", w.getOwner())
-                            .replace("%world-name%", w.getName())
-                            .replace("%world-created%", w.getFormatTime()))
-                    .withLore(replacePholders(lang.getStringList("MENUS.ALL-WORLD-LIST.WORLD.LORE"), w))
-                    .withClickEvent(event -> {
-                        event.setCancelled(true);
-                        if (event.getClick() == ClickType.LEFT) {
-                            if (w.isLocked() && !roleManager.hasPermission(player, RoleManager.Permission.LOCK_WORLDS)) {
-                                for (String s : lang.getStringList("MESSAGES.NO-TELEPORT-LOCK")) {
-                                    player.sendMessage(ColorUtils.colorize(s));
-                                }
-                                return;
-                            }
-                            w.teleport(player);
-                            for (String s : lang.getStringList("MESSAGES.TELEPORTED")) {
-                                s = s.replace("%world-name%", w.getName());
-                                player.sendMessage(ColorUtils.colorize(s));
-                            }
-                        } else if (event.getClick() == ClickType.RIGHT) {
-                            deleteWorld(plugin, player, w);
-                        }
-                    })
-                    .build());
+            if (slot >= worlds.size()) break;
+            WorldData w = worlds.get(slot);
+            items[i] = worldItem(plugin, player, w);
+            worldSlots.put(w.getName(), i);
             slot++;
         }
 
@@ -362,9 +406,42 @@ public final class MainMenu {
                 .withItems(items)
                 .withSize(6 * 9)
                 .withDisabledClicking()
-                .withTitle(lang.getString("MENUS.ALL-WORLD-LIST.TITLE", "&bListing Worlds...")).build();
+                .withTitle(menu.getTitle()).build();
 
         gui.open(player);
+        plugin.getWorldViewRegistry().watch(player, gui, worldSlots, w -> worldItem(plugin, player, w));
+    }
+
+    /**
+     * This method creates the item of the world in the world list. Left click teleports the player to the world,
+     * right click opens the delete menu.
+     *
+     * @param plugin The plugin instance
+     * @param player The player who is viewing the world list
+     * @param w The world the item is for
+     * @return The GuiItem of the world
+     */
+    private static GuiItem worldItem(@NotNull BuildSystem plugin, @NotNull Player player, @NotNull WorldData w) {
+        RoleManager roleManager = plugin.getRoleManager();
+        MessageManager messages = plugin.getMessageManager();
+        return GuiItem.create()
+                .withItem(plugin.getWorldIconCache().getIcon(w, messages))
+                .withCooldown("world", ACTION_COOLDOWN)
+                .withClickEvent(event -> {
+                    event.setCancelled(true);
+                    if (event.getClick() == ClickType.LEFT) {
+                        WorldData world = plugin.getWorldCatalog().touch(w);
+                        if (world.isLocked() && !roleManager.hasPermission(player, RoleManager.Permission.LOCK_WORLDS)) {
+                            messages.send(player, Message.NO_TELEPORT_LOCK);
+                            return;
+                        }
+                        world.teleport(player, plugin);
+                        messages.send(player, Message.TELEPORTED, world.getName());
+                    } else if (event.getClick() == ClickType.RIGHT) {
+                        deleteWorld(plugin, player, w);
+                    }
+                })
+                .build();
     }
 
     /**
@@ -375,46 +452,42 @@ public final class MainMenu {
      * @param data The WorldData object that is being deleted.
      */
     private static void deleteWorld(@NotNull BuildSystem plugin, @NotNull Player player, @NotNull WorldData data) {
-        Map<Integer, GuiItem> items = new HashMap<>();
-        Optional<YamlConfiguration> langFile = plugin.getFileCache().get("lang.yml");
-        if (!langFile.isPresent()) {
-            throw new BuildSystemException("Could not open delete world menu for player {0} because file lang.yml is missing!", player.getName());
-        }
-        YamlConfiguration lang = langFile.get();
+        GuiItem[] items = new GuiItem[3 * 9];
+        MenusConfig.Delete menu = plugin.getConfigManager().getSnapshot().getMenus().getDelete();
 
-        items.put(11, GuiItem.create()
+        items[11] = GuiItem.create()
                 .withItem(new ItemStack(Material.BARRIER))
-                .withName(lang.getString("MENUS.DELETE.CANCEL-BUTTON.NAME", "&cCancel"))
-                .withLore(lang.getStringList("MENUS.DELETE.CANCEL-BUTTON.LORE"))
+                .withName(menu.getCancel().getName())
+                .withLore(menu.getCancel().getLore())
                 .withClickEvent(event -> {
                     event.setCancelled(true);
                     open(player, plugin);
                 })
-                .build());
+                .build();
 
-        List<String> newLore = new ArrayList<>();
-        for (String s : lang.getStringList("MENUS.DELETE.CONFIRM-BUTTON.LORE")) {
-            s = s.replace("%world-name%", data.getName());
-            newLore.add(s);
-        }
+        MessageManager messages = plugin.getMessageManager();
 
-        items.put(15, GuiItem.create()
+        items[15] = GuiItem.create()
                 .withItem(new ItemStack(Material.TNT))
-                .withName(lang.getString("MENUS.DELETE.CONFIRM-BUTTON.NAME", "&aConfirm"))
-                .withLore(newLore)
+                .withName(menu.getConfirmName())
+                .withLore(messages.lines(Message.DELETE_CONFIRM_LORE, data.getName()))
+                .withCooldown("delete", ACTION_COOLDOWN)
                 .withClickEvent(event -> {
                     event.setCancelled(true);
+                    // the world is not deleted when its row could not be removed
+                    if (!plugin.getStorage().isConnected()) {
+                        player.closeInventory();
+                        messages.send(player, Message.DATABASE_UNAVAILABLE);
+                        return;
+                    }
                     data.delete(plugin);
                     open(player, plugin);
-                    for (String s : lang.getStringList("MESSAGES.WORLD-DELETE")) {
-                        s = s.replace("%world-name%", data.getName());
-                        player.sendMessage(ColorUtils.colorize(s));
-                    }
+                    messages.send(player, Message.WORLD_DELETE, data.getName());
                 })
-                .build());
+                .build();
 
         Gui gui = Gui.create()
-                .withTitle(lang.getString("MENUS.DELETE.TITLE", "&cDeleting world..."))
+                .withTitle(menu.getTitle())
                 .withSize(3 * 9)
                 .withItems(items)
                 .withDisabledClicking()
@@ -423,21 +496,4 @@ public final class MainMenu {
         gui.open(player);
     }
 
-    /**
-     * This function replaces the placeholders in the lore with the actual data
-     *
-     * @param lore The lore of the item.
-     * @param data The WorldData object that contains all the information about the world.
-     * @return A list of strings.
-     */
-    private static List<String> replacePholders(@NotNull List<String> lore, @NotNull WorldData data) {
-        List<String> newLore = new ArrayList<>();
-        for (String s : lore) {
-            s = s.replace("%world-name%", data.getName()).replace("%world-owner%", data.getOwner())
-                    .replace("%world-created%", data.getFormatTime());
-            newLore.add(s);
-        }
-        return newLore;
-    }
-
 }
@@ -0,0 +1,45 @@
+package cz.jesuschrist69.buildsystem.lang;
+
+import lombok.Getter;
+
+@Getter
+public enum Message {
+
+    NO_PERM("MESSAGES.NO-PERM", null),
+    TELEPORTED("MESSAGES.TELEPORTED", null, "%world-name%"),
+    NO_TELEPORT_LOCK("MESSAGES.NO-TELEPORT-LOCK", null),
+    WORLD_DELETE("MESSAGES.WORLD-DELETE", null, "%world-name%"),
+    WORLD_LOCKED("MESSAGES.WORLD-LOCKED", null, "%world-name%"),
+    WORLD_HIDDEN("MESSAGES.WORLD-HIDDEN", null, "%world-name%"),
+    WORLD_SHOWN("MESSAGES.WORLD-SHOWN", null, "%world-name%"),
+    WORLD_UNLOCKED("MESSAGES.WORLD-UNLOCKED", null, "%world-name%"),
+    ALREADY_HIDDEN("MESSAGES.ALREADY-HIDDEN", null),
+    ALREADY_VISIBLE("MESSAGES.ALREADY-VISIBLE", null),
+    ALREADY_LOCKED("MESSAGES.ALREADY-LOCKED", null),
+    ALREADY_UNLOCKED("MESSAGES.ALREADY-UNLOCKED", null),
+    SAVE_FAILED("MESSAGES.SAVE-FAILED", "&7[&c!&7] &cWorld &f%world-name% &ccould not be saved, please try again", "%world-name%"),
+    DATABASE_UNAVAILABLE("MESSAGES.DATABASE-UNAVAILABLE", "&7[&c!&7] &cThe database is unavailable right now, please try again later"),
+
+    WORLD_ICON_NAME("MENUS.ALL-WORLD-LIST.WORLD.NAME", "&f%world-owner%&7's world", "%world-owner%", "%world-name%", "%world-created%", "%world-loaded%", "%world-locked%", "%world-hidden%"),
+    WORLD_ICON_LORE("MENUS.ALL-WORLD-LIST.WORLD.LORE", null, "%world-owner%", "%world-name%", "%world-created%", "%world-loaded%", "%world-locked%", "%world-hidden%"),
+    STATE_YES("MENUS.ALL-WORLD-LIST.WORLD.STATE-YES", "&aYes"),
+    STATE_NO("MENUS.ALL-WORLD-LIST.WORLD.STATE-NO", "&cNo"),
+    CREATE_WORLD_NAME("MENUS.CREATE.WORLD-NAME.NAME", "&eWorld Name: &6%world-name%", "%world-name%"),
+    DELETE_CONFIRM_LORE("MENUS.DELETE.CONFIRM-BUTTON.LORE", null, "%world-name%");
+
+    private final String path;
+    private final String def;
+    private final String[] placeholders;
+
+    /**
+     * @param path Path of the message in lang.yml
+     * @param def Text used when lang.yml does not contain the path, null means the message is disabled
+     * @param placeholders Placeholders of the message, in the order their values are passed when the message is sent
+     */
+    Message(String path, String def, String... placeholders) {
+        this.path = path;
+        this.def = def;
+        this.placeholders = placeholders;
+    }
+
+}
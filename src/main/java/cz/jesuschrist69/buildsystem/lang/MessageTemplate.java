@@ -0,0 +1,94 @@
+package cz.jesuschrist69.buildsystem.lang;
+
+import cz.jesuschrist69.buildsystem.utils.ColorUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of a message compiled from lang.yml. Line is split into colorized literal segments and placeholder slots,
+ * so filling it is just concatenation.
+ */
+public final class MessageTemplate {
+
+    private final String[] literals;
+    private final int[] slots;
+    private final int length;
+
+    private MessageTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.length = length;
+    }
+
+    /**
+     * This function colorizes the line and splits it on every occurrence of the given placeholders.
+     *
+     * @param line The line to compile.
+     * @param placeholders The placeholders that can occur in the line, index of placeholder is index of its value.
+     * @return The compiled template.
+     */
+    public static MessageTemplate compile(@NotNull String line, @NotNull String... placeholders) {
+        // Placeholders start with '%' which is never a color code, so colorizing the whole line first is safe
+        String colored = ColorUtils.colorize(line);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < colored.length()) {
+            int found = -1;
+            if (colored.charAt(i) == '%') {
+                for (int p = 0; p < placeholders.length; p++) {
+                    if (colored.startsWith(placeholders[p], i)) {
+                        found = p;
+                        break;
+                    }
+                }
+            }
+            if (found == -1) {
+                i++;
+                continue;
+            }
+            literals.add(colored.substring(start, i));
+            slots.add(found);
+            i += placeholders[found].length();
+            start = i;
+        }
+        literals.add(colored.substring(start));
+
+        int[] slotArray = new int[slots.size()];
+        for (int s = 0; s < slotArray.length; s++) {
+            slotArray[s] = slots.get(s);
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * This function fills the placeholder slots with the given values.
+     *
+     * @param values Values of the placeholders, in the order the placeholders were passed to compile.
+     * @return The filled line.
+     */
+    public String format(@NotNull String... values) {
+        if (slots.length == 0) return literals[0];
+        int capacity = length;
+        for (int slot : slots) {
+            capacity += slot < values.length ? values[slot].length() : 0;
+        }
+        StringBuilder builder = new StringBuilder(capacity);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            if (slots[i] < values.length) {
+                builder.append(values[slots[i]]);
+            }
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+
+}
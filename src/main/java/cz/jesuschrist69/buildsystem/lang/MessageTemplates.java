@@ -0,0 +1,48 @@
+package cz.jesuschrist69.buildsystem.lang;
+
+import lombok.Getter;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * All messages of lang.yml compiled into templates. Never changes once created.
+ */
+public final class MessageTemplates {
+
+    private final Map<Message, MessageTemplate[]> messages = new EnumMap<>(Message.class);
+    @Getter
+    private final int version;
+
+    public MessageTemplates(@NotNull YamlConfiguration lang, int version) {
+        this.version = version;
+        for (Message message : Message.values()) {
+            List<String> lines;
+            if (lang.isList(message.getPath())) {
+                lines = lang.getStringList(message.getPath());
+            } else if (lang.isString(message.getPath())) {
+                lines = Collections.singletonList(lang.getString(message.getPath()));
+            } else if (message.getDef() != null) {
+                lines = Collections.singletonList(message.getDef());
+            } else {
+                lines = Collections.emptyList();
+            }
+            MessageTemplate[] compiled = new MessageTemplate[lines.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = MessageTemplate.compile(lines.get(i), message.getPlaceholders());
+            }
+            messages.put(message, compiled);
+        }
+    }
+
+    /**
+     * Returns compiled lines of the message.
+     *
+     * @param message The message.
+     * @return Array of compiled lines
+     */
+    public MessageTemplate[] get(@NotNull Message message) {
+        return messages.get(message);
+    }
+}
@@ -1,65 +1,93 @@
 package cz.jesuschrist69.buildsystem.listeners;
 
+import cz.jesuschrist69.buildsystem.BuildSystem;
 import cz.jesuschrist69.buildsystem.component.BuildSystemListener;
 import cz.jesuschrist69.buildsystem.gui.Gui;
 import cz.jesuschrist69.buildsystem.gui.GuiItem;
+import cz.jesuschrist69.buildsystem.manager.GuiManager;
+import cz.jesuschrist69.buildsystem.manager.WorldManager;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.*;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
 
 @BuildSystemListener
 public class GuiListener implements Listener {
 
+    private final BuildSystem plugin = JavaPlugin.getPlugin(BuildSystem.class);
+
     @EventHandler
     public void onClick(InventoryClickEvent e) {
-        if (e.getClickedInventory() == null) {
+        Gui gui = GuiManager.getSession(e.getWhoClicked().getUniqueId());
+        if (gui == null || e.getClickedInventory() == null) {
+            return;
+        }
+        if (!gui.isShownIn(e.getView().getTopInventory())) {
             return;
         }
-        if (e.getClickedInventory().getHolder() instanceof Gui) {
-            Gui gui = (Gui) e.getClickedInventory().getHolder();
+        if (gui.isShownIn(e.getClickedInventory())) {
             if (gui.isDisabledClicking()) {
                 e.setCancelled(true);
             }
 
-            GuiItem item = gui.getItems().get(e.getSlot());
-            if (item != null) {
-                item.callClick(e);
-            }
-        }
-        if (e.getView().getTopInventory().getHolder() instanceof Gui) {
-            Gui gui = (Gui) e.getView().getTopInventory().getHolder();
-            if (e.getView().getBottomInventory().equals(e.getClickedInventory())) {
-                if (e.getClick() == ClickType.SHIFT_LEFT || e.getClick() == ClickType.SHIFT_RIGHT) {
-                    e.setCancelled(true);
-                }
+            GuiItem item = gui.getItem(e.getSlot());
+            if (item != null && e.getWhoClicked() instanceof Player) {
+                plugin.getClickLimiter().dispatch((Player) e.getWhoClicked(), gui, item, e);
             }
+        } else if (e.getClick() == ClickType.SHIFT_LEFT || e.getClick() == ClickType.SHIFT_RIGHT) {
+            e.setCancelled(true);
         }
     }
 
     @EventHandler
     public void onDrag(InventoryDragEvent e) {
-        if (e.getInventory().getHolder() instanceof Gui) {
-            Gui gui = (Gui) e.getInventory().getHolder();
-            if (gui.isDisabledClicking()) {
-                e.setCancelled(true);
-            }
+        Gui gui = GuiManager.getSession(e.getWhoClicked().getUniqueId());
+        if (gui == null) {
+            return;
+        }
+        if (gui.isShownIn(e.getInventory()) && gui.isDisabledClicking()) {
+            e.setCancelled(true);
         }
     }
 
     @EventHandler
     public void onClose(InventoryCloseEvent e) {
-        if (e.getInventory().getHolder() instanceof Gui) {
-            Gui gui = (Gui) e.getInventory().getHolder();
+        Gui gui = GuiManager.getSession(e.getPlayer().getUniqueId());
+        if (gui == null) {
+            return;
+        }
+        if (gui.isShownIn(e.getInventory())) {
+            GuiManager.closeSession(e.getPlayer().getUniqueId(), gui);
             gui.callClosed(e);
+            return;
+        }
+        // previous gui of the player, closed because the session already moved to another gui. Not the holder of the
+        // inventory, a reused inventory is held by the gui that created it and not by the one shown in it.
+        Gui previous = GuiManager.closePrevious(e.getPlayer().getUniqueId(), e.getInventory());
+        if (previous != null) {
+            previous.callClosed(e);
         }
     }
 
     @EventHandler
     public void onOpen(InventoryOpenEvent e) {
-        if (e.getInventory().getHolder() instanceof Gui) {
-            Gui gui = (Gui) e.getInventory().getHolder();
+        Gui gui = GuiManager.getSession(e.getPlayer().getUniqueId());
+        if (gui == null) {
+            return;
+        }
+        if (gui.isShownIn(e.getInventory())) {
             gui.callOpen(e);
         }
     }
 
+    @EventHandler
+    public void onQuit(PlayerQuitEvent e) {
+        plugin.getClickLimiter().forget(e.getPlayer().getUniqueId());
+        WorldManager.cancelSearch(e.getPlayer().getUniqueId());
+        GuiManager.forget(e.getPlayer().getUniqueId());
+        plugin.getWorldViewRegistry().forget(e.getPlayer().getUniqueId());
+    }
+
 }
@@ -1,5 +1,6 @@
 package cz.jesuschrist69.buildsystem.listeners;
 
+import cz.jesuschrist69.buildsystem.BuildSystem;
 import cz.jesuschrist69.buildsystem.component.BuildSystemListener;
 import cz.jesuschrist69.buildsystem.manager.WorldManager;
 import org.bukkit.World;
@@ -9,12 +10,16 @@ import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.java.JavaPlugin;
 
 @BuildSystemListener
 public class WorldListener implements Listener {
 
+    private final BuildSystem plugin = JavaPlugin.getPlugin(BuildSystem.class);
+
     @EventHandler
     public void onQuit(PlayerQuitEvent e) {
+        plugin.getWorldCatalog().playerQuit(e.getPlayer().getName());
         World w = e.getPlayer().getWorld();
         if (w.getPlayers().size() == 0) WorldManager.EMPTY_WORLDS.put(w, System.currentTimeMillis());
     }
@@ -35,6 +40,7 @@ public class WorldListener implements Listener {
 
     @EventHandler
     public void onJoin(PlayerJoinEvent e) {
+        plugin.getWorldCatalog().playerJoined(e.getPlayer().getName());
         WorldManager.EMPTY_WORLDS.remove(e.getPlayer().getWorld());
     }
 
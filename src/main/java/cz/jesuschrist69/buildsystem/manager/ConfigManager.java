@@ -0,0 +1,164 @@
+package cz.jesuschrist69.buildsystem.manager;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.cache.CacheRegistry;
+import cz.jesuschrist69.buildsystem.config.ConfigSnapshot;
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public final class ConfigManager {
+
+    private static final long WATCH_DEBOUNCE = 500;
+
+    private final BuildSystem plugin;
+    private final AtomicInteger versions = new AtomicInteger();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    // Replaced as a whole, readers never block and always see either old or new configuration
+    private volatile ConfigSnapshot snapshot;
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public ConfigManager(@NotNull BuildSystem plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * This function loads the configuration on the current thread. Used on startup, when nothing can run without it.
+     */
+    public void load() {
+        swap(ConfigSnapshot.load(plugin, versions.incrementAndGet()));
+    }
+
+    /**
+     * This function loads the configuration on a worker thread and swaps it with the current one. Callback is called
+     * on the main thread with null when the reload succeeded, or with the reason why it failed, in that case the
+     * current configuration stays.
+     *
+     * @param callback Called when the reload finishes.
+     */
+    public void reload(@NotNull Consumer<Throwable> callback) {
+        if (!reloading.compareAndSet(false, true)) {
+            callback.accept(new BuildSystemException("Configuration is already being reloaded!"));
+            return;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            Throwable error = null;
+            try {
+                swap(ConfigSnapshot.load(plugin, versions.incrementAndGet()));
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                reloading.set(false);
+            }
+            Throwable result = error;
+            Bukkit.getScheduler().runTask(plugin, () -> callback.accept(result));
+        });
+    }
+
+    /**
+     * This function replaces the current configuration
+     *
+     * @param snapshot The new configuration.
+     */
+    private void swap(@NotNull ConfigSnapshot snapshot) {
+        this.snapshot = snapshot;
+        CacheRegistry.register("files", snapshot.getFiles());
+    }
+
+    /**
+     * This function starts watching the data folder, configuration is reloaded whenever any of its files changes.
+     */
+    public void startWatching() {
+        if (watchThread != null) return;
+        Path folder = plugin.getDataFolder().toPath();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        } catch (IOException e) {
+            throw new BuildSystemException("Could not watch folder {0} for changes", folder, e);
+        }
+        watchThread = new Thread(this::watch, "BuildSystem-ConfigWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * This function stops watching the data folder
+     */
+    public void stopWatching() {
+        if (watchThread == null) return;
+        watchThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException ignored) {}
+        watchThread = null;
+        watchService = null;
+    }
+
+    /**
+     * This function waits for changes of configuration files and reloads the configuration when some changed. Changes
+     * that come shortly after each other cause only one reload.
+     */
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                boolean changed = collectChanges(key);
+                // editors often write a file in several steps, wait until they are done
+                while ((key = service.poll(WATCH_DEBOUNCE, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= collectChanges(key);
+                }
+                if (changed) {
+                    reload(error -> {
+                        if (error == null) {
+                            plugin.getLogger().info("Configuration reloaded after file change.");
+                        } else {
+                            plugin.getLogger().warning("Failed to reload configuration: " + error.getMessage());
+                        }
+                    });
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // stopped
+        }
+    }
+
+    /**
+     * This function checks if the events of the key touch any configuration file
+     *
+     * @param key The key with events.
+     * @return Boolean - true if some configuration file changed
+     */
+    private boolean collectChanges(@NotNull WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context instanceof Path && snapshot.getFiles().keys().contains(context.toString())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * This method returns the current configuration.
+     *
+     * @return The snapshot object.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+}
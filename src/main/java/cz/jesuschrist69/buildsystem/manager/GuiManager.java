@@ -0,0 +1,92 @@
+package cz.jesuschrist69.buildsystem.manager;
+
+import cz.jesuschrist69.buildsystem.gui.Gui;
+import lombok.experimental.UtilityClass;
+import org.bukkit.inventory.Inventory;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@UtilityClass
+public class GuiManager {
+
+    // Only used from the main thread
+    private static final Map<UUID, Gui> SESSIONS = new HashMap<>();
+    // Gui the player had open before the current one, its inventory is closed only after the session moved on
+    private static final Map<UUID, Gui> PREVIOUS = new HashMap<>();
+
+    /**
+     * This method returns the gui the player has open
+     *
+     * @param uuid The UUID of the player.
+     * @return Gui or null if the player has no BuildSystem gui open
+     */
+    public Gui getSession(@NotNull UUID uuid) {
+        return SESSIONS.get(uuid);
+    }
+
+    /**
+     * This method checks if the player has a BuildSystem gui open
+     *
+     * @param uuid The UUID of the player.
+     * @return Boolean
+     */
+    public boolean hasSession(@NotNull UUID uuid) {
+        return SESSIONS.containsKey(uuid);
+    }
+
+    /**
+     * This method sets the gui the player has open
+     *
+     * @param uuid The UUID of the player.
+     * @param gui The gui the player has open.
+     */
+    public void setSession(@NotNull UUID uuid, @NotNull Gui gui) {
+        Gui previous = SESSIONS.put(uuid, gui);
+        if (previous != null && previous != gui) {
+            PREVIOUS.put(uuid, previous);
+        }
+    }
+
+    /**
+     * This method ends the session of the player, but only if the player still has the given gui open
+     *
+     * @param uuid The UUID of the player.
+     * @param gui The gui that was closed.
+     * @return Boolean - true if the session was ended
+     */
+    public boolean closeSession(@NotNull UUID uuid, @NotNull Gui gui) {
+        // by identity, guis are equal by value
+        if (SESSIONS.get(uuid) != gui) return false;
+        SESSIONS.remove(uuid);
+        return true;
+    }
+
+    /**
+     * This method returns the gui the player had open before the current one and forgets it, but only if that gui is
+     * shown in the given inventory
+     *
+     * @param uuid The UUID of the player.
+     * @param inventory The inventory that was closed.
+     * @return Gui or null if the previous gui is not shown in the inventory
+     */
+    public Gui closePrevious(@NotNull UUID uuid, @NotNull Inventory inventory) {
+        Gui previous = PREVIOUS.get(uuid);
+        if (previous == null || !previous.isShownIn(inventory)) return null;
+        PREVIOUS.remove(uuid);
+        return previous;
+    }
+
+    /**
+     * This method removes session of the player
+     *
+     * @param uuid The UUID of the player.
+     */
+    public void forget(@NotNull UUID uuid) {
+        SESSIONS.remove(uuid);
+        PREVIOUS.remove(uuid);
+    }
+
+}
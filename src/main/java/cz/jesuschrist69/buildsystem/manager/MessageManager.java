@@ -0,0 +1,81 @@
+package cz.jesuschrist69.buildsystem.manager;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.lang.Message;
+import cz.jesuschrist69.buildsystem.lang.MessageTemplate;
+import cz.jesuschrist69.buildsystem.lang.MessageTemplates;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class MessageManager {
+
+    private final BuildSystem plugin;
+
+    public MessageManager(@NotNull BuildSystem plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Returns messages of the current configuration. Reload replaces them as a whole, so a caller that uses the
+     * returned templates always sees either old or new messages.
+     *
+     * @return MessageTemplates - current messages
+     */
+    private MessageTemplates templates() {
+        return plugin.getConfigManager().getSnapshot().getMessages();
+    }
+
+    /**
+     * Returns version of lang.yml the current messages were compiled from.
+     *
+     * @return Integer - version of messages
+     */
+    public int getVersion() {
+        return templates().getVersion();
+    }
+
+    /**
+     * This function sends every line of the message to the receiver.
+     *
+     * @param receiver The receiver of the message.
+     * @param message The message to send.
+     * @param values Values of the message placeholders.
+     */
+    public void send(@NotNull CommandSender receiver, @NotNull Message message, @NotNull String... values) {
+        for (MessageTemplate line : templates().get(message)) {
+            receiver.sendMessage(line.format(values));
+        }
+    }
+
+    /**
+     * Returns all lines of the message with filled placeholders.
+     *
+     * @param message The message.
+     * @param values Values of the message placeholders.
+     * @return List of lines
+     */
+    public List<String> lines(@NotNull Message message, @NotNull String... values) {
+        MessageTemplate[] lines = templates().get(message);
+        List<String> result = new ArrayList<>(lines.length);
+        for (MessageTemplate line : lines) {
+            result.add(line.format(values));
+        }
+        return result;
+    }
+
+    /**
+     * Returns first line of the message with filled placeholders.
+     *
+     * @param message The message.
+     * @param values Values of the message placeholders.
+     * @return String - first line of message or empty string if message has no lines
+     */
+    public String format(@NotNull Message message, @NotNull String... values) {
+        MessageTemplate[] lines = templates().get(message);
+        return lines.length == 0 ? "" : lines[0].format(values);
+    }
+
+}
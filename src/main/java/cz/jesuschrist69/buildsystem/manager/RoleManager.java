@@ -1,7 +1,6 @@
 package cz.jesuschrist69.buildsystem.manager;
 
 import cz.jesuschrist69.buildsystem.BuildSystem;
-import cz.jesuschrist69.buildsystem.cache.type.RoleCache;
 import cz.jesuschrist69.buildsystem.component.Role;
 import cz.jesuschrist69.buildsystem.component.WorldType;
 import org.bukkit.configuration.ConfigurationSection;
@@ -9,16 +8,15 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public final class RoleManager {
 
-    private final RoleCache roleCache;
+    private final BuildSystem plugin;
 
     public RoleManager(@NotNull BuildSystem plugin) {
-        this.roleCache = new RoleCache();
-
-        roleCache.init(plugin);
+        this.plugin = plugin;
     }
 
     /**
@@ -29,7 +27,7 @@ public final class RoleManager {
      */
     public List<RoleUser> getUserRoles(@NotNull Player player) {
         List<RoleUser> roles = new ArrayList<>();
-        for (RoleUser role : roleCache.values()) {
+        for (RoleUser role : plugin.getConfigManager().getSnapshot().getSettings().getRoles()) {
             if (player.hasPermission(role.getRequiredPermission())) {
                 roles.add(role);
             }
@@ -47,25 +45,58 @@ public final class RoleManager {
     public boolean hasPermission(@NotNull Player player, @NotNull Permission permission) {
         List<RoleUser> roles = getUserRoles(player);
         for (RoleUser role : roles) {
-            switch (permission) {
-                case WORLD_TYPE_EMPTY:
-                    if (role.getAllowedWorldTypes().contains(WorldType.EMPTY)) return true;
-                case WORLD_TYPE_FLAT:
-                    if (role.getAllowedWorldTypes().contains(WorldType.FLAT)) return true;
-                case SEARCH_WORLD:
-                    if (role.isSearchAllowed()) return true;
-                case TELEPORT_TO_WORLD:
-                    if (role.isTeleportAllowed()) return true;
-                case SEE_ALL_WORLDS:
-                    if (role.canSeeAllWorlds()) return true;
-                case DELETE_WORLDS:
-                    if (role.canDeleteWorlds()) return true;
-                case LOCK_WORLDS:
-                    if (role.canLockWorlds()) return true;
-                case HIDE_WORLDS:
-                    if (role.canHideWorlds()) return true;
+            if (grants(role, permission)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns bit mask of all permissions the player has, bit of the permission is its ordinal. Players with the same
+     * mask are allowed to do the same things.
+     *
+     * @param player The player to get the mask for.
+     * @return Integer - permission mask
+     */
+    public int getPermissionMask(@NotNull Player player) {
+        List<RoleUser> roles = getUserRoles(player);
+        int mask = 0;
+        for (Permission permission : Permission.values()) {
+            for (RoleUser role : roles) {
+                if (grants(role, permission)) {
+                    mask |= 1 << permission.ordinal();
+                    break;
+                }
             }
         }
+        return mask;
+    }
+
+    /**
+     * If the role allows to do the permission, return true.
+     *
+     * @param role The role to check.
+     * @param permission The permission you want to check.
+     * @return A boolean value.
+     */
+    private boolean grants(@NotNull RoleUser role, @NotNull Permission permission) {
+        switch (permission) {
+            case WORLD_TYPE_EMPTY:
+                if (role.getAllowedWorldTypes().contains(WorldType.EMPTY)) return true;
+            case WORLD_TYPE_FLAT:
+                if (role.getAllowedWorldTypes().contains(WorldType.FLAT)) return true;
+            case SEARCH_WORLD:
+                if (role.isSearchAllowed()) return true;
+            case TELEPORT_TO_WORLD:
+                if (role.isTeleportAllowed()) return true;
+            case SEE_ALL_WORLDS:
+                if (role.canSeeAllWorlds()) return true;
+            case DELETE_WORLDS:
+                if (role.canDeleteWorlds()) return true;
+            case LOCK_WORLDS:
+                if (role.canLockWorlds()) return true;
+            case HIDE_WORLDS:
+                if (role.canHideWorlds()) return true;
+        }
         return false;
     }
 
@@ -80,67 +111,87 @@ public final class RoleManager {
         HIDE_WORLDS
     }
 
+    /**
+     * Role compiled from its section of settings.yml. All values are read once, so the role never changes even when
+     * the section is reloaded.
+     */
     public static class RoleUser implements Role {
 
-        private final ConfigurationSection section;
+        private final String roleKey;
+        private final String requiredPermission;
+        private final List<WorldType> allowedWorldTypes;
+        private final boolean searchAllowed;
+        private final boolean teleportAllowed;
+        private final boolean seeAllWorlds;
+        private final boolean deleteWorlds;
+        private final boolean lockWorlds;
+        private final boolean hideWorlds;
 
         public RoleUser(@NotNull ConfigurationSection section) {
-            this.section = section;
+            this.roleKey = section.getName();
+            this.requiredPermission = section.getString("PERMISSION", "buildsystem." + section.getName().toLowerCase());
+            List<WorldType> worldTypes = new ArrayList<>();
+            for (String s : section.getStringList("ALLOWED-WORLD-TYPES")) {
+                try {
+                    WorldType worldType = WorldType.valueOf(s.toUpperCase());
+                    worldTypes.add(worldType);
+                } catch (Exception ignored) {}
+            }
+            if (worldTypes.isEmpty()) {
+                worldTypes.add(WorldType.NONE);
+            }
+            this.allowedWorldTypes = Collections.unmodifiableList(worldTypes);
+            this.searchAllowed = section.getBoolean("ALLOW-SEARCH", true);
+            this.teleportAllowed = section.getBoolean("WORLD-TP", true);
+            this.seeAllWorlds = section.getBoolean("SEE-ALL-WORLDS", false);
+            this.deleteWorlds = section.getBoolean("DELETE-WORLDS", false);
+            this.lockWorlds = section.getBoolean("WORLD-LOCK", false);
+            this.hideWorlds = section.getBoolean("WORLD-HIDE", false);
         }
 
         @Override
         public String getRoleKey() {
-            return section.getName();
+            return roleKey;
         }
 
         @Override
         public String getRequiredPermission() {
-            return section.getString("PERMISSION", "buildsystem." + section.getName().toLowerCase());
+            return requiredPermission;
         }
 
         @Override
         public List<WorldType> getAllowedWorldTypes() {
-            List<WorldType> worldTypes = new ArrayList<>();
-            for (String s : section.getStringList("ALLOWED-WORLD-TYPES")) {
-                try {
-                    WorldType worldType = WorldType.valueOf(s.toUpperCase());
-                    worldTypes.add(worldType);
-                } catch (Exception ignored) {}
-            }
-            if (worldTypes.isEmpty()) {
-                worldTypes.add(WorldType.NONE);
-            }
-            return worldTypes;
+            return allowedWorldTypes;
         }
 
         @Override
         public boolean isSearchAllowed() {
-            return section.getBoolean("ALLOW-SEARCH", true);
+            return searchAllowed;
         }
 
         @Override
         public boolean isTeleportAllowed() {
-            return section.getBoolean("WORLD-TP", true);
+            return teleportAllowed;
         }
 
         @Override
         public boolean canSeeAllWorlds() {
-            return section.getBoolean("SEE-ALL-WORLDS", false);
+            return seeAllWorlds;
         }
 
         @Override
         public boolean canDeleteWorlds() {
-            return section.getBoolean("DELETE-WORLDS", false);
+            return deleteWorlds;
         }
 
         @Override
         public boolean canLockWorlds() {
-            return section.getBoolean("WORLD-LOCK", false);
+            return lockWorlds;
         }
 
         @Override
         public boolean canHideWorlds() {
-            return section.getBoolean("WORLD-HIDE", false);
+            return hideWorlds;
         }
     }
 
@@ -0,0 +1,185 @@
+package cz.jesuschrist69.buildsystem.manager;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.component.WorldType;
+import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.data.WorldQuery;
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which worlds are kept in memory. By default every world is loaded at startup and kept in
+ * {@link WorldData#getWORLDS()}. In tiered mode only hot worlds are kept there: loaded worlds, worlds owned by online
+ * players and recently visited worlds. World lists are then read page by page from the database with
+ * {@link WorldQuery}, and worlds that were not used for a while are dropped from memory again.
+ */
+public class WorldCatalog {
+
+    // names bound by one statement of fetch, keeps the IN list far below the placeholder limit
+    private static final int FETCH_CHUNK = 1000;
+
+    private final BuildSystem plugin;
+    private final boolean tiered;
+
+    // lower-case world name -> last time a player visited the world
+    private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+    // lower-case names of online players, kept here so the async sweep does not have to ask Bukkit
+    private final Set<String> onlineOwners = ConcurrentHashMap.newKeySet();
+    private int taskId = -1;
+
+    public WorldCatalog(@NotNull BuildSystem plugin, boolean tiered) {
+        this.plugin = plugin;
+        this.tiered = tiered;
+    }
+
+    /**
+     * This method checks if only hot worlds are kept in memory
+     *
+     * @return Boolean
+     */
+    public boolean isTiered() {
+        return tiered;
+    }
+
+    /**
+     * This function starts dropping idle worlds from memory every minute. It does nothing unless tiered mode is on.
+     */
+    public void start() {
+        if (!tiered || taskId != -1) return;
+        taskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::demoteIdle, 20 * 60, 20 * 60).getTaskId();
+    }
+
+    /**
+     * This function stops dropping idle worlds from memory
+     */
+    public void stop() {
+        if (taskId == -1) return;
+        Bukkit.getScheduler().cancelTask(taskId);
+        taskId = -1;
+    }
+
+    /**
+     * This function reads worlds matching the query from the database. Worlds that are in memory already are returned
+     * as the in-memory instance, others are returned unregistered. It blocks, so call it asynchronously.
+     *
+     * @param query The query to run.
+     * @return List<WorldData> - matching worlds in the order of the query
+     */
+    public List<WorldData> query(@NotNull WorldQuery query) {
+        List<WorldData> worlds = new ArrayList<>();
+        plugin.getStorage().forEach(query.toTemplate(), WorldCatalog::read,
+                row -> worlds.add(WorldData.find(row.getName()).orElse(row)), query.getParams());
+        return worlds;
+    }
+
+    /**
+     * This function reads the current rows of the worlds with the given names. Unlike {@link #query(WorldQuery)} every
+     * world is returned unregistered, even when it is in memory, so it can be compared with the in-memory instance.
+     * Names are read in chunks, so any number of names can be passed. It blocks, so call it asynchronously.
+     *
+     * @param names The names of the worlds.
+     * @return List<WorldData> - rows of the worlds that exist
+     */
+    public List<WorldData> fetch(@NotNull Collection<String> names) {
+        List<WorldData> worlds = new ArrayList<>(names.size());
+        List<String> all = new ArrayList<>(names);
+        for (int from = 0; from < all.size(); from += FETCH_CHUNK) {
+            WorldQuery query = WorldQuery.create().withNames(all.subList(from, Math.min(all.size(), from + FETCH_CHUNK))).build();
+            plugin.getStorage().forEach(query.toTemplate(), WorldCatalog::read, worlds::add, query.getParams());
+        }
+        return worlds;
+    }
+
+    /**
+     * This function keeps all worlds matching the query in memory. It blocks, so call it asynchronously.
+     *
+     * @param query The query to run.
+     */
+    public void promote(@NotNull WorldQuery query) {
+        for (WorldData world : query(query)) {
+            WorldData.promote(world);
+        }
+    }
+
+    /**
+     * This function marks the world as visited, in tiered mode it also keeps the world in memory
+     *
+     * @param world The visited world.
+     * @return WorldData - the in-memory instance of the world
+     */
+    public WorldData touch(@NotNull WorldData world) {
+        if (!tiered) return world;
+        lastAccess.put(world.getName().toLowerCase(Locale.ROOT), System.currentTimeMillis());
+        return WorldData.promote(world);
+    }
+
+    /**
+     * This function keeps worlds of the player in memory while the player is online. It does nothing unless tiered
+     * mode is on.
+     *
+     * @param playerName The name of the player who joined.
+     */
+    public void playerJoined(@NotNull String playerName) {
+        if (!tiered) return;
+        onlineOwners.add(playerName.toLowerCase(Locale.ROOT));
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                promote(WorldQuery.create().withOwner(playerName).build());
+            } catch (BuildSystemException e) {
+                plugin.getLogger().warning("Failed to load worlds of " + playerName + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * This function lets worlds of the player be dropped from memory once they are idle
+     *
+     * @param playerName The name of the player who left.
+     */
+    public void playerQuit(@NotNull String playerName) {
+        onlineOwners.remove(playerName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * This function drops worlds from memory that are not loaded, whose owner is offline and that nobody visited for
+     * the configured time. Icons of worlds that are not in memory are dropped as well.
+     */
+    private void demoteIdle() {
+        long idle = TimeUnit.MINUTES.toMillis(plugin.getConfigManager().getSnapshot().getSettings().getHotIdleMinutes());
+        long now = System.currentTimeMillis();
+        Set<String> hot = new HashSet<>();
+        for (WorldData world : WorldData.getWORLDS()) {
+            String name = world.getName().toLowerCase(Locale.ROOT);
+            boolean ownerOnline = world.getOwner() != null && onlineOwners.contains(world.getOwner().toLowerCase(Locale.ROOT));
+            if (world.isLoaded() || ownerOnline || now - lastAccess.getOrDefault(name, 0L) < idle) {
+                hot.add(world.getName());
+                continue;
+            }
+            WorldData.demote(world);
+            lastAccess.remove(name);
+        }
+        plugin.getWorldIconCache().keys().removeIf(name -> !hot.contains(name));
+    }
+
+    /**
+     * This function reads the current row of world_data into an unregistered world
+     *
+     * @param results The results positioned at the row.
+     * @return WorldData - the world of the row
+     */
+    public static WorldData read(@NotNull ResultSet results) throws SQLException {
+        String name = results.getString("name");
+        return WorldData.detached(results.getString("owner"), name,
+                WorldType.valueOf(results.getString("world_type")), results.getTimestamp("created_at"),
+                results.getInt("hidden") == 1, results.getInt("locked") == 1, Bukkit.getWorld(name) != null,
+                results.getInt("version"));
+    }
+
+}
@@ -2,6 +2,7 @@ package cz.jesuschrist69.buildsystem.manager;
 
 import cz.jesuschrist69.buildsystem.BuildSystem;
 import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.data.WorldQuery;
 import lombok.experimental.UtilityClass;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
@@ -9,12 +10,20 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @UtilityClass
 public class WorldManager {
 
     private static int taskId;
     public static final Map<World, Long> EMPTY_WORLDS = new HashMap<>();
+    // Newest search of every player, older searches are cancelled
+    private static final Map<UUID, Integer> SEARCHES = new ConcurrentHashMap<>();
+    private static final AtomicInteger SEARCH_GENERATION = new AtomicInteger();
 
     /**
      * This function checks every minute if there is a world that is unused for longer than 5 minutes.
@@ -31,6 +40,12 @@ public class WorldManager {
                     EMPTY_WORLDS.remove(w);
                     System.out.println("Unloaded world " + w.getName());
                     Bukkit.unloadWorld(w, false);
+                    for (WorldData wd : WorldData.getWORLDS()) {
+                        if (wd.getName().equals(w.getName())) {
+                            wd.setLoaded(false);
+                            break;
+                        }
+                    }
                 }
             }
         }, 0, 20*60).getTaskId();
@@ -45,44 +60,144 @@ public class WorldManager {
      * @return A list of WorldData objects.
      */
     public List<WorldData> getApplicableWorlds(@NotNull BuildSystem plugin, @NotNull Player player, String search) {
+        return getApplicableWorlds(WorldData.getWORLDS(), player.getName(), plugin.getRoleManager().getPermissionMask(player), search, () -> false);
+    }
+
+    /**
+     * This method returns a list of worlds that the player can see. It does not touch Bukkit api, so it can be
+     * called from any thread with a snapshot of worlds.
+     *
+     * @param worlds The worlds to filter.
+     * @param playerName Name of the player who is viewing the worlds.
+     * @param mask Permission mask of the player, see {@link RoleManager#getPermissionMask(Player)}.
+     * @param search The search string that the player entered.
+     * @param cancelled Returns true when the result is no longer needed.
+     * @return A list of WorldData objects, or null if the search was cancelled.
+     */
+    public List<WorldData> getApplicableWorlds(@NotNull Collection<WorldData> worlds, @NotNull String playerName, int mask,
+                                               String search, @NotNull BooleanSupplier cancelled) {
+        boolean seeAll = (mask & 1 << RoleManager.Permission.SEE_ALL_WORLDS.ordinal()) != 0;
+        boolean seeHidden = (mask & 1 << RoleManager.Permission.HIDE_WORLDS.ordinal()) != 0;
+        boolean searching = search != null && !search.equalsIgnoreCase("");
         List<WorldData> data = new ArrayList<>();
-        RoleManager roleManager = plugin.getRoleManager();
 
-        for (WorldData wd : WorldData.getWORLDS()) {
-            if (roleManager.hasPermission(player, RoleManager.Permission.SEE_ALL_WORLDS)) {
-                if (roleManager.hasPermission(player, RoleManager.Permission.HIDE_WORLDS)) {
-                    if (search != null && !search.equalsIgnoreCase("")) {
-                        if (wd.getName().contains(search)) {
-                            data.add(wd);
-                        }
-                    } else {
-                        data.add(wd);
-                    }
-                } else {
-                    if (!wd.isHidden()) {
-                        if (search != null && !search.equalsIgnoreCase("")) {
-                            if (wd.getName().contains(search)) {
-                                data.add(wd);
-                            }
-                        } else {
-                            data.add(wd);
-                        }
-                    }
-                }
-            } else {
-                if (player.getName().equalsIgnoreCase(wd.getOwner())) {
-                    if (search != null && !search.equalsIgnoreCase("")) {
-                        if (wd.getName().contains(search)) {
-                            data.add(wd);
-                        }
-                    } else {
-                        data.add(wd);
-                    }
+        int checked = 0;
+        for (WorldData wd : worlds) {
+            if (++checked % 256 == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            if (seeAll) {
+                if (!seeHidden && wd.isHidden()) {
+                    continue;
                 }
+            } else if (!playerName.equalsIgnoreCase(wd.getOwner())) {
+                continue;
+            }
+            if (searching && !wd.getName().contains(search)) {
+                continue;
             }
+            data.add(wd);
         }
 
         return data;
     }
 
+    /**
+     * This method searches worlds the player can see off the main thread. Permissions are resolved on the calling
+     * thread, filtering and sorting runs asynchronously over a snapshot of the worlds, and the callback is called on the
+     * main thread. When the player starts another search before this one finishes, this one is cancelled and the
+     * callback is never called.
+     *
+     * @param plugin The plugin instance.
+     * @param player The player who is searching.
+     * @param search The search string that the player entered.
+     * @param callback Receives worlds matching the search, sorted by name.
+     */
+    public void searchWorlds(@NotNull BuildSystem plugin, @NotNull Player player, String search, @NotNull Consumer<List<WorldData>> callback) {
+        String playerName = player.getName();
+        int mask = plugin.getRoleManager().getPermissionMask(player);
+        // CopyOnWriteArrayList iterates over snapshot taken here
+        Collection<WorldData> snapshot = WorldData.getWORLDS();
+        runSearch(plugin, player, cancelled -> {
+            List<WorldData> worlds = getApplicableWorlds(snapshot, playerName, mask, search, cancelled);
+            if (worlds != null) {
+                worlds.sort(Comparator.comparing(WorldData::getName, String.CASE_INSENSITIVE_ORDER));
+            }
+            return worlds;
+        }, callback);
+    }
+
+    /**
+     * This method reads one page of worlds the player can see from the database, see {@link WorldQuery}. Permission
+     * and search filters are applied by the database. Like {@link #searchWorlds}, the page is read off the main thread
+     * and a newer search or page of the player cancels this one.
+     *
+     * @param plugin The plugin instance.
+     * @param player The player who is viewing the worlds.
+     * @param search The start of world names the player searches for, may be null.
+     * @param after The name of the world the page starts after, empty for the first page.
+     * @param limit The maximum number of worlds on the page.
+     * @param callback Receives worlds of the page, sorted by name.
+     */
+    public void searchPage(@NotNull BuildSystem plugin, @NotNull Player player, String search, @NotNull String after, int limit,
+                           @NotNull Consumer<List<WorldData>> callback) {
+        int mask = plugin.getRoleManager().getPermissionMask(player);
+        boolean seeAll = (mask & 1 << RoleManager.Permission.SEE_ALL_WORLDS.ordinal()) != 0;
+        boolean seeHidden = (mask & 1 << RoleManager.Permission.HIDE_WORLDS.ordinal()) != 0;
+        WorldQuery query = WorldQuery.create()
+                .withOwner(seeAll ? null : player.getName())
+                .withHidden(!seeAll || seeHidden)
+                .withNamePrefix(search)
+                .withAfter(after)
+                .withLimit(limit)
+                .build();
+        runSearch(plugin, player, cancelled -> plugin.getWorldCatalog().query(query), callback);
+    }
+
+    /**
+     * This method runs the search off the main thread and calls the callback with its result on the main thread,
+     * unless the player started another search in the meantime or left.
+     *
+     * @param plugin The plugin instance.
+     * @param player The player who is searching.
+     * @param search Runs the search, returns null when it notices it was cancelled.
+     * @param callback Receives the result of the search.
+     */
+    private void runSearch(@NotNull BuildSystem plugin, @NotNull Player player,
+                           @NotNull Function<BooleanSupplier, List<WorldData>> search, @NotNull Consumer<List<WorldData>> callback) {
+        UUID uuid = player.getUniqueId();
+        int generation = SEARCH_GENERATION.incrementAndGet();
+        SEARCHES.put(uuid, generation);
+        BooleanSupplier cancelled = () -> SEARCHES.getOrDefault(uuid, -1) != generation;
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<WorldData> worlds;
+            try {
+                worlds = search.apply(cancelled);
+            } catch (Exception e) {
+                SEARCHES.remove(uuid, generation);
+                plugin.getLogger().warning("Failed to search worlds for " + player.getName() + ": " + e.getMessage());
+                return;
+            }
+            if (worlds == null || cancelled.getAsBoolean()) {
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (!SEARCHES.remove(uuid, generation) || !player.isOnline()) {
+                    return;
+                }
+                callback.accept(worlds);
+            });
+        });
+    }
+
+    /**
+     * This method cancels running search of the player
+     *
+     * @param uuid The UUID of the player.
+     */
+    public void cancelSearch(@NotNull UUID uuid) {
+        SEARCHES.remove(uuid);
+    }
+
 }
@@ -0,0 +1,303 @@
+package cz.jesuschrist69.buildsystem.manager;
+
+import cz.jesuschrist69.buildsystem.BuildSystem;
+import cz.jesuschrist69.buildsystem.data.WorldData;
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
+import cz.jesuschrist69.buildsystem.mysql.Storage;
+import cz.jesuschrist69.buildsystem.mysql.Queries;
+import cz.jesuschrist69.buildsystem.mysql.SqlExecutor;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlTemplate;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps worlds in memory in sync between servers that share one database. Every change of a world is appended to the
+ * world_changes table, every server polls the rows it did not see yet and re-reads only the changed worlds. Progress of
+ * every server is stored in the sync_nodes table, rows all servers have seen are pruned.
+ */
+public class WorldSync {
+
+    // changes read by one poll, the rest is read by the next one
+    private static final int BATCH_SIZE = 500;
+    private static final long PROGRESS_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final long PRUNE_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    // servers that did not poll for this long do not hold pruning back, their rows are removed after a day
+    private static final int NODE_TIMEOUT_MINUTES = 60;
+    private static final int NODE_EXPIRY_HOURS = 24;
+    // how long a missing seq is waited for. Seq is taken when the row is inserted but the row becomes visible only
+    // when its transaction commits, so a lower seq can show up after a higher one. Seqs of rolled back transactions,
+    // interleaved inserts or auto_increment_increment above 1 never show up, those are given up once the grace period
+    // is over. Rows after a missing seq are applied right away, only the missing seqs are read again.
+    private static final long GAP_GRACE = TimeUnit.SECONDS.toMillis(10);
+    // missing seqs read again by one poll, and the widest hole whose seqs are waited for at all
+    private static final int MISSING_BATCH_SIZE = 1000;
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private static final SqlTemplate SELECT_CHANGES = new SqlBuilder.Select("%mysql-table-prefix%" + "world_changes")
+            .columns("seq", "world", "node")
+            .where("seq > ?")
+            .orderBy("seq")
+            .limit(BATCH_SIZE)
+            .compile();
+    private static final SqlTemplate SELECT_SEEN_CHANGE = new SqlBuilder.Select("%mysql-table-prefix%" + "sync_nodes")
+            .columns("COALESCE(MIN(last_seq), 0)")
+            .where("seen_at >= ?")
+            .compile();
+    private static final SqlTemplate DELETE_EXPIRED_NODES = new SqlBuilder.Delete("%mysql-table-prefix%" + "sync_nodes")
+            .where("seen_at < ?")
+            .compile();
+
+    private final BuildSystem plugin;
+    private final String node;
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    // only touched by the poll task. Every seq up to lastSeq is applied or given up, every seq up to readSeq is
+    // applied or missing.
+    private long lastSeq;
+    private long readSeq;
+    // missing seq -> since when it is missing
+    private final TreeMap<Long, Long> missing = new TreeMap<>();
+    private long savedSeq = -1;
+    private long lastProgress;
+    private long lastPrune;
+    private int taskId = -1;
+
+    public WorldSync(@NotNull BuildSystem plugin, @NotNull String node) {
+        this.plugin = plugin;
+        this.node = node;
+    }
+
+    public enum Change {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    /**
+     * This function starts polling for changes made by other servers. Only changes made after this call are applied,
+     * so call it before the worlds are read.
+     *
+     * @param intervalTicks Ticks between two polls.
+     */
+    public void start(long intervalTicks) {
+        if (taskId != -1) return;
+        lastSeq = queryLong(Queries.SELECT_LAST_CHANGE);
+        readSeq = lastSeq;
+        missing.clear();
+        taskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::poll, intervalTicks, intervalTicks).getTaskId();
+    }
+
+    /**
+     * This function stops polling and removes progress of this server, so it does not hold pruning back
+     */
+    public void stop() {
+        if (taskId == -1) return;
+        Bukkit.getScheduler().cancelTask(taskId);
+        taskId = -1;
+        try {
+            plugin.getStorage().execute(Queries.DELETE_NODE, node);
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * This method checks if changes are recorded and polled
+     *
+     * @return Boolean
+     */
+    public boolean isRunning() {
+        return taskId != -1;
+    }
+
+    /**
+     * This function records the change of the world, so other servers pick it up. It does nothing unless syncing is
+     * running.
+     *
+     * @param world The name of the changed world.
+     * @param change What happened to the world.
+     */
+    public void record(@NotNull String world, @NotNull Change change) {
+        record(plugin.getStorage(), world, change);
+    }
+
+    /**
+     * This function records the change of the world through the executor, so it can be part of the transaction that
+     * changes the world. It does nothing unless syncing is running.
+     *
+     * @param executor The storage or transaction to record the change with.
+     * @param world The name of the changed world.
+     * @param change What happened to the world.
+     */
+    public void record(@NotNull SqlExecutor executor, @NotNull String world, @NotNull Change change) {
+        if (!isRunning()) return;
+        executor.execute(Queries.INSERT_CHANGE, world, change.name(), node);
+    }
+
+    /**
+     * This function records the same change of many worlds with one batch. It does nothing unless syncing is running.
+     *
+     * @param executor The storage or transaction to record the changes with.
+     * @param worlds The names of the changed worlds.
+     * @param change What happened to the worlds.
+     */
+    public void recordAll(@NotNull SqlExecutor executor, @NotNull Collection<String> worlds, @NotNull Change change) {
+        if (!isRunning()) return;
+        List<Object[]> rows = new ArrayList<>(worlds.size());
+        for (String world : worlds) {
+            rows.add(new Object[]{world, change.name(), node});
+        }
+        executor.executeBatch(Queries.INSERT_CHANGE, rows);
+    }
+
+    /**
+     * This function reads changes made by other servers since the last poll and applies them on the main thread
+     */
+    private void poll() {
+        // the database is unreachable, changes are picked up once it is back
+        if (!plugin.getStorage().isConnected()) return;
+        if (!polling.compareAndSet(false, true)) return;
+        try {
+            Set<String> changed = new LinkedHashSet<>();
+            long now = System.currentTimeMillis();
+            Storage storage = plugin.getStorage();
+            // kept only once the changed worlds are read, so a failed poll reads the same changes again
+            TreeMap<Long, Long> stillMissing = new TreeMap<>(missing);
+            long read = readSeq;
+            if (!stillMissing.isEmpty()) {
+                List<Long> seqs = new ArrayList<>(MISSING_BATCH_SIZE);
+                for (Long seq : stillMissing.keySet()) {
+                    if (seqs.size() == MISSING_BATCH_SIZE) break;
+                    seqs.add(seq);
+                }
+                for (ChangeRow row : storage.query(selectMissing(seqs.size()), ChangeRow::new, seqs.toArray())) {
+                    stillMissing.remove(row.seq);
+                    collect(row, changed);
+                }
+            }
+            for (ChangeRow row : storage.query(SELECT_CHANGES, ChangeRow::new, read)) {
+                if (row.seq - read - 1 <= MAX_TRACKED_GAP) {
+                    for (long seq = read + 1; seq < row.seq; seq++) {
+                        stillMissing.put(seq, now);
+                    }
+                }
+                read = row.seq;
+                collect(row, changed);
+            }
+            stillMissing.values().removeIf(since -> now - since >= GAP_GRACE);
+
+            if (!changed.isEmpty()) {
+                Map<String, WorldData> rows = new HashMap<>();
+                for (WorldData row : plugin.getWorldCatalog().fetch(changed)) {
+                    rows.put(row.getName().toLowerCase(Locale.ROOT), row);
+                }
+                Bukkit.getScheduler().runTask(plugin, () -> apply(changed, rows));
+            }
+            missing.clear();
+            missing.putAll(stillMissing);
+            readSeq = read;
+            lastSeq = missing.isEmpty() ? readSeq : missing.firstKey() - 1;
+
+            if (lastSeq != savedSeq || now - lastProgress >= PROGRESS_INTERVAL) {
+                storage.execute(Queries.UPSERT_NODE, node, lastSeq);
+                savedSeq = lastSeq;
+                lastProgress = now;
+            }
+            if (now - lastPrune >= PRUNE_INTERVAL) {
+                prune();
+                lastPrune = now;
+            }
+        } catch (BuildSystemException e) {
+            plugin.getLogger().warning("Failed to poll world changes: " + e.getMessage());
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * This function adds the world of the change to the changed worlds, unless this server made the change
+     *
+     * @param row The change.
+     * @param changed Names of the changed worlds.
+     */
+    private void collect(@NotNull ChangeRow row, @NotNull Set<String> changed) {
+        if (!node.equals(row.node)) {
+            changed.add(row.world);
+        }
+    }
+
+    /**
+     * This function builds the statement that reads changes with the given seqs
+     *
+     * @param count Number of the seqs.
+     * @return SqlTemplate - the statement
+     */
+    private static SqlTemplate selectMissing(int count) {
+        return new SqlBuilder.Select("%mysql-table-prefix%" + "world_changes")
+                .columns("seq", "world", "node")
+                .where("seq IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")")
+                .compile();
+    }
+
+    /**
+     * This function applies changed worlds to the worlds in memory
+     *
+     * @param changed Names of the changed worlds.
+     * @param rows Current rows of the changed worlds by lower-case name, deleted worlds have no row.
+     */
+    private void apply(@NotNull Set<String> changed, @NotNull Map<String, WorldData> rows) {
+        for (String name : changed) {
+            WorldData row = rows.get(name.toLowerCase(Locale.ROOT));
+            Optional<WorldData> current = WorldData.find(name);
+            if (row == null) {
+                current.ifPresent(world -> {
+                    WorldData.demote(world);
+                    plugin.getWorldIconCache().remove(world.getName());
+                });
+            } else if (current.isPresent()) {
+                current.get().update(row);
+            } else if (!plugin.getWorldCatalog().isTiered()) {
+                WorldData.promote(row);
+            }
+        }
+    }
+
+    /**
+     * This function removes changes every active server has seen and forgets servers that stopped long ago
+     */
+    private void prune() {
+        Storage storage = plugin.getStorage();
+        // cut-offs are bound as values, interval arithmetic differs between storages
+        long now = System.currentTimeMillis();
+        storage.execute(DELETE_EXPIRED_NODES, new Timestamp(now - TimeUnit.HOURS.toMillis(NODE_EXPIRY_HOURS)));
+        long seen = queryLong(SELECT_SEEN_CHANGE, new Timestamp(now - TimeUnit.MINUTES.toMillis(NODE_TIMEOUT_MINUTES)));
+        if (seen > 0) {
+            storage.execute(Queries.DELETE_SEEN_CHANGES, seen);
+        }
+    }
+
+    private long queryLong(@NotNull SqlTemplate query, Object... params) {
+        return plugin.getStorage().queryFirst(query, row -> row.getLong(1), params).orElse(0L);
+    }
+
+    private static final class ChangeRow {
+
+        private final long seq;
+        private final String world;
+        private final String node;
+
+        private ChangeRow(@NotNull ResultSet row) throws SQLException {
+            this.seq = row.getLong("seq");
+            this.world = row.getString("world");
+            this.node = row.getString("node");
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package cz.jesuschrist69.buildsystem.mysql;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Storage backed by an embedded H2 database in MySQL compatibility mode, for single servers that do not want to run
+ * MySQL. The database lives in a file, nothing goes over the network. Only one process can open the file, so it cannot
+ * be shared by several servers. It needs no server or Bukkit, so it can also stand in for MySQL in tests and benchmarks.
+ */
+public class H2Storage extends JdbcStorage {
+
+    private final String url;
+
+    /**
+     * @param file The database file, without the .mv.db extension H2 adds.
+     * @param tablePrefix The prefix of all tables that belong to this plugin.
+     */
+    public H2Storage(@NotNull File file, @NotNull String tablePrefix) {
+        this("jdbc:h2:file:" + file.getAbsolutePath(), tablePrefix);
+    }
+
+    private H2Storage(@NotNull String url, @NotNull String tablePrefix) {
+        super(tablePrefix, 0);
+        // unquoted names are stored in lower case as in MySQL, so metadata lookups find them
+        this.url = url + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+        open();
+    }
+
+    /**
+     * This function creates storage in memory. The database is kept until the JVM stops, so it survives reconnects.
+     *
+     * @param name The name of the database, storages with the same name share it.
+     * @param tablePrefix The prefix of all tables that belong to this plugin.
+     * @return H2Storage - the storage
+     */
+    public static H2Storage inMemory(@NotNull String name, @NotNull String tablePrefix) {
+        // without the delay H2 drops the database as soon as its last connection closes
+        return new H2Storage("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", tablePrefix);
+    }
+
+    @Override
+    public String getType() {
+        return "h2";
+    }
+
+    @Override
+    protected String getDriver() {
+        return "org.h2.Driver";
+    }
+
+    @Override
+    protected Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url, "sa", "");
+    }
+
+    @Override
+    public boolean lock(@NotNull String name, int timeout) {
+        // the database file is opened by this process only
+        return true;
+    }
+
+    @Override
+    public void unlock(@NotNull String name) {
+    }
+
+}
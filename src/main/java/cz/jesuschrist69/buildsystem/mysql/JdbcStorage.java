@@ -0,0 +1,649 @@
+package cz.jesuschrist69.buildsystem.mysql;
+
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
+import cz.jesuschrist69.buildsystem.mysql.builder.BulkInsert;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlTemplate;
+import cz.jesuschrist69.buildsystem.mysql.stats.QueryStats;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Base of the storages that talk to the database over a single JDBC connection. Liveness of the connection is checked
+ * by a background thread instead of before every query. When the database becomes unreachable the circuit opens and
+ * queries fail fast, the background thread then tries to reconnect with exponential backoff and closes the circuit
+ * once it succeeds.
+ */
+public abstract class JdbcStorage implements Storage, Transaction {
+
+    private static final long CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+    private static final long MIN_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+    private static final long MAX_BACKOFF = TimeUnit.MINUTES.toMillis(1);
+    // how long disconnect waits for running statements before it closes the connection anyway
+    private static final long DISCONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+    private static final Set<String> LOADED_DRIVERS = ConcurrentHashMap.newKeySet();
+    // the largest packet assumed when the database does not tell
+    private static final long DEFAULT_MAX_PACKET_SIZE = 4 * 1024 * 1024;
+    // rows of one bulk insert, and placeholders of one statement the drivers accept
+    private static final int MAX_INSERT_ROWS = 1000;
+    private static final int MAX_PARAMETERS = 65535;
+    // shapes of statements that are not plain queries
+    private static final String BATCH_PREFIX = "BATCH ";
+    private static final String COMMIT = "COMMIT";
+
+    private final String tablePrefix;
+    private final int fetchSize;
+    private final AtomicReference<State> state = new AtomicReference<>(State.HALF_OPEN);
+    // every use of the connection holds it, transactions for their whole duration
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private final QueryStats queryStats = new QueryStats();
+    private ScheduledExecutorService monitor;
+
+    private volatile Connection connection;
+    private volatile long retryAt;
+    // only touched while holding the lock of this object
+    private long backoff = MIN_BACKOFF;
+    // only touched by the monitor thread
+    private long lastCheck;
+    // only touched while holding connectionLock
+    private int transactionDepth;
+
+    /**
+     * @param tablePrefix The prefix of all tables that belong to this plugin.
+     * @param fetchSize Rows fetched from the database at once while a query is read, 0 leaves it to the driver.
+     */
+    protected JdbcStorage(@NotNull String tablePrefix, int fetchSize) {
+        this.tablePrefix = tablePrefix;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * This function returns the class name of the JDBC driver
+     *
+     * @return String - the class name
+     */
+    protected abstract String getDriver();
+
+    /**
+     * This function opens a new connection to the database
+     *
+     * @return Connection - the new connection
+     */
+    protected abstract Connection openConnection() throws SQLException;
+
+    /**
+     * This function connects to the database and starts checking the connection in the background. Subclasses call it
+     * at the end of their constructor, once everything {@link #openConnection()} needs is set.
+     */
+    protected final void open() {
+        connect();
+        monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BuildSystem " + getType() + " monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(this::monitor, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Method used to establish connection with the database
+     *
+     * @return Boolean - true if the connection was established
+     */
+    private boolean connect() {
+        // the connection is not replaced while a statement or transaction uses it
+        connectionLock.lock();
+        try {
+            synchronized (this) {
+                loadDriver(getDriver());
+                Connection previous = connection;
+                connection = openConnection();
+                close(previous);
+                backoff = MIN_BACKOFF;
+                state.set(State.CLOSED);
+                return true;
+            }
+        } catch (Throwable ignored) {
+            trip();
+            return false;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    /**
+     * This function loads the JDBC driver, only the first call for every driver does any work
+     *
+     * @param driver The class name of the driver.
+     */
+    private static void loadDriver(@NotNull String driver) throws ClassNotFoundException {
+        if (LOADED_DRIVERS.contains(driver)) return;
+        Class.forName(driver);
+        LOADED_DRIVERS.add(driver);
+    }
+
+    /**
+     * This function opens the circuit and schedules the next reconnect attempt, every attempt in a row waits twice as
+     * long as the previous one
+     */
+    private synchronized void trip() {
+        if (state.get() == State.OPEN) return;
+        retryAt = System.currentTimeMillis() + backoff;
+        backoff = Math.min(backoff * 2, MAX_BACKOFF);
+        state.set(State.OPEN);
+    }
+
+    /**
+     * This function runs every second on the monitor thread. While the circuit is closed it validates the connection
+     * every {@link #CHECK_INTERVAL}, while it is open it reconnects once the backoff has passed.
+     */
+    private void monitor() {
+        long now = System.currentTimeMillis();
+        if (state.get() == State.CLOSED) {
+            if (now - lastCheck < CHECK_INTERVAL) return;
+            lastCheck = now;
+            if (!isValid()) {
+                trip();
+            }
+        } else if (now >= retryAt && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            connect();
+        }
+    }
+
+    @Override
+    public void execute(@NotNull String query, Object... params) {
+        executeResolved(SqlTemplate.replacePrefix(query, tablePrefix), params);
+    }
+
+    @Override
+    public void execute(@NotNull SqlTemplate template, Object... params) {
+        executeResolved(template.resolve(tablePrefix), params);
+    }
+
+    @Override
+    public int executeUpdate(@NotNull String query, Object... params) {
+        return executeUpdateResolved(SqlTemplate.replacePrefix(query, tablePrefix), params);
+    }
+
+    @Override
+    public int executeUpdate(@NotNull SqlTemplate template, Object... params) {
+        return executeUpdateResolved(template.resolve(tablePrefix), params);
+    }
+
+    @Override
+    public int[] executeBatch(@NotNull String query, @NotNull List<Object[]> rows) {
+        return executeBatchResolved(SqlTemplate.replacePrefix(query, tablePrefix), rows);
+    }
+
+    @Override
+    public int[] executeBatch(@NotNull SqlTemplate template, @NotNull List<Object[]> rows) {
+        return executeBatchResolved(template.resolve(tablePrefix), rows);
+    }
+
+    @Override
+    public int insertAll(@NotNull BulkInsert insert, @NotNull List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int chunk = rowsPerInsert(insert, rows);
+        return inTransaction(() -> {
+            int affected = 0;
+            for (int from = 0; from < rows.size(); from += chunk) {
+                List<Object[]> part = rows.subList(from, Math.min(rows.size(), from + chunk));
+                Object[] params = new Object[part.size() * insert.getColumnCount()];
+                int index = 0;
+                for (Object[] row : part) {
+                    assert row.length == insert.getColumnCount() : "Row must have a value for every column.";
+                    System.arraycopy(row, 0, params, index, row.length);
+                    index += row.length;
+                }
+                affected += executeUpdateResolved(insert.forRows(part.size()).resolve(tablePrefix), params);
+            }
+            return affected;
+        });
+    }
+
+    /**
+     * This function returns how many rows one statement of the bulk insert can take. Every statement has room for the
+     * largest of the rows and stays under half of the largest packet, so estimates that are off do not matter.
+     *
+     * @param insert The statement to insert the rows with.
+     * @param rows Values of the rows.
+     * @return Integer - rows of one statement
+     */
+    private int rowsPerInsert(@NotNull BulkInsert insert, @NotNull List<Object[]> rows) {
+        long largestRow = 0;
+        for (Object[] row : rows) {
+            largestRow = Math.max(largestRow, sizeOf(row));
+        }
+        long budget = getMaxPacketSize() / 2 - insert.getLength(0) - tablePrefix.length();
+        long rowSize = largestRow + insert.getLength(1) - insert.getLength(0);
+        long byPacket = Math.max(1, budget / rowSize);
+        return (int) Math.min(byPacket, Math.min(MAX_INSERT_ROWS, MAX_PARAMETERS / insert.getColumnCount()));
+    }
+
+    /**
+     * This function estimates the bytes the values of the row take in a packet
+     *
+     * @param row The values of the row.
+     * @return Long - estimated size in bytes
+     */
+    private static long sizeOf(@NotNull Object[] row) {
+        long size = 0;
+        for (Object value : row) {
+            if (value instanceof CharSequence) {
+                // up to 4 bytes for every character
+                size += 4L * ((CharSequence) value).length() + 8;
+            } else if (value instanceof byte[]) {
+                size += ((byte[]) value).length + 8;
+            } else {
+                size += 16;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * This function returns the largest packet the database accepts, statements and their values must fit into it
+     *
+     * @return Long - the size in bytes
+     */
+    protected long getMaxPacketSize() {
+        return DEFAULT_MAX_PACKET_SIZE;
+    }
+
+    @Override
+    public void transaction(@NotNull Consumer<Transaction> work) {
+        inTransaction(() -> {
+            work.accept(this);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> List<T> query(@NotNull String query, @NotNull RowMapper<T> mapper, Object... params) {
+        List<T> rows = new ArrayList<>();
+        queryResolved(SqlTemplate.replacePrefix(query, tablePrefix), 0, mapper, rows::add, params);
+        return rows;
+    }
+
+    @Override
+    public <T> List<T> query(@NotNull SqlTemplate template, @NotNull RowMapper<T> mapper, Object... params) {
+        List<T> rows = new ArrayList<>();
+        queryResolved(template.resolve(tablePrefix), 0, mapper, rows::add, params);
+        return rows;
+    }
+
+    @Override
+    public <T> Optional<T> queryFirst(@NotNull String query, @NotNull RowMapper<T> mapper, Object... params) {
+        List<T> rows = new ArrayList<>(1);
+        queryResolved(SqlTemplate.replacePrefix(query, tablePrefix), 1, mapper, rows::add, params);
+        return rows.isEmpty() ? Optional.empty() : Optional.ofNullable(rows.get(0));
+    }
+
+    @Override
+    public <T> Optional<T> queryFirst(@NotNull SqlTemplate template, @NotNull RowMapper<T> mapper, Object... params) {
+        List<T> rows = new ArrayList<>(1);
+        queryResolved(template.resolve(tablePrefix), 1, mapper, rows::add, params);
+        return rows.isEmpty() ? Optional.empty() : Optional.ofNullable(rows.get(0));
+    }
+
+    @Override
+    public <T> void forEach(@NotNull String query, @NotNull RowMapper<T> mapper, @NotNull Consumer<T> action, Object... params) {
+        queryResolved(SqlTemplate.replacePrefix(query, tablePrefix), 0, mapper, action, params);
+    }
+
+    @Override
+    public <T> void forEach(@NotNull SqlTemplate template, @NotNull RowMapper<T> mapper, @NotNull Consumer<T> action, Object... params) {
+        queryResolved(template.resolve(tablePrefix), 0, mapper, action, params);
+    }
+
+    private void executeResolved(@NotNull String query, Object... params) {
+        long start = System.nanoTime();
+        boolean success = false;
+        lockConnection(query);
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            bind(statement, params);
+            statement.execute();
+            success = true;
+        } catch (Throwable t) {
+            failed(t);
+            throw new BuildSystemException("Could not execute query: {0}", t, query);
+        } finally {
+            connectionLock.unlock();
+            queryStats.record(query, System.nanoTime() - start, success);
+        }
+    }
+
+    private int executeUpdateResolved(@NotNull String query, Object... params) {
+        long start = System.nanoTime();
+        boolean success = false;
+        lockConnection(query);
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            bind(statement, params);
+            int updated = statement.executeUpdate();
+            success = true;
+            return updated;
+        } catch (Throwable t) {
+            failed(t);
+            throw new BuildSystemException("Could not execute query: {0}", t, query);
+        } finally {
+            connectionLock.unlock();
+            queryStats.record(query, System.nanoTime() - start, success);
+        }
+    }
+
+    private int[] executeBatchResolved(@NotNull String query, @NotNull List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        return inTransaction(() -> {
+            long start = System.nanoTime();
+            boolean success = false;
+            lockConnection(query);
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                for (Object[] row : rows) {
+                    bind(statement, row);
+                    statement.addBatch();
+                }
+                int[] updated = statement.executeBatch();
+                success = true;
+                return updated;
+            } catch (SQLException e) {
+                failed(e);
+                throw new BuildSystemException("Could not execute batch of {0} statements: {1}", e, rows.size(), query);
+            } finally {
+                connectionLock.unlock();
+                queryStats.record(BATCH_PREFIX + query, System.nanoTime() - start, success);
+            }
+        });
+    }
+
+    /**
+     * This function runs the work with auto-commit off and commits once it returns, or rolls back if it throws. The
+     * connection stays locked to the calling thread for the whole time, so statements of other threads do not end up
+     * in the transaction. When the thread is in a transaction already, the work joins it.
+     *
+     * @param work The work to run.
+     * @return T - the result of the work
+     */
+    private <T> T inTransaction(@NotNull Supplier<T> work) {
+        lockConnection("transaction");
+        try {
+            if (transactionDepth > 0) {
+                return work.get();
+            }
+            Connection current = connection;
+            transactionDepth++;
+            try {
+                current.setAutoCommit(false);
+                T result = work.get();
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    current.commit();
+                    success = true;
+                } finally {
+                    queryStats.record(COMMIT, System.nanoTime() - start, success);
+                }
+                return result;
+            } catch (SQLException e) {
+                rollback(current);
+                failed(e);
+                throw new BuildSystemException("Could not commit transaction", e);
+            } catch (RuntimeException | Error e) {
+                rollback(current);
+                throw e;
+            } finally {
+                transactionDepth--;
+                try {
+                    current.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+            }
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private static void rollback(@NotNull Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // the connection is gone, the database rolls back on its own
+        }
+    }
+
+    /**
+     * This function executes the query and passes every mapped row to the action while the rows are read. Rows are
+     * fetched from the database {@link #fetchSize} at a time, the statement and result set are always closed.
+     *
+     * @param query The query to execute.
+     * @param maxRows The maximum number of rows to read, 0 means no limit.
+     * @param mapper Turns rows into objects.
+     * @param action Receives the objects.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     */
+    private <T> void queryResolved(@NotNull String query, int maxRows, @NotNull RowMapper<T> mapper, @NotNull Consumer<T> action,
+                                   Object... params) {
+        long start = System.nanoTime();
+        boolean success = false;
+        lockConnection(query);
+        try (PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            bind(statement, params);
+            statement.setMaxRows(maxRows);
+            if (fetchSize > 0) {
+                statement.setFetchSize(maxRows > 0 ? Math.min(maxRows, fetchSize) : fetchSize);
+            }
+            try (ResultSet results = statement.executeQuery()) {
+                while (results.next()) {
+                    action.accept(mapper.map(results));
+                }
+            }
+            success = true;
+        } catch (SQLException e) {
+            failed(e);
+            throw new BuildSystemException("Could not execute query: {0}", e, query);
+        } finally {
+            connectionLock.unlock();
+            queryStats.record(query, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * This function fails fast while the circuit is not closed, so callers do not wait for an unreachable database
+     *
+     * @param query The query that needs the connection, used in the error message.
+     */
+    private void ensureConnected(@NotNull String query) {
+        if (state.get() != State.CLOSED) {
+            throw unavailable(query);
+        }
+    }
+
+    private BuildSystemException unavailable(@NotNull String query) {
+        return new BuildSystemException("{0} database is unavailable, next reconnect attempt in {1} ms. Skipping query {2}",
+                getType(), getRetryIn(), query);
+    }
+
+    /**
+     * This function locks the connection for the calling thread. It fails fast while the circuit is not closed, and
+     * fails once it holds the lock when the connection was closed or lost while it waited.
+     *
+     * @param query The query that needs the connection, used in the error message.
+     */
+    private void lockConnection(@NotNull String query) {
+        ensureConnected(query);
+        connectionLock.lock();
+        if (connection == null || state.get() != State.CLOSED) {
+            connectionLock.unlock();
+            throw unavailable(query);
+        }
+    }
+
+    /**
+     * This function opens the circuit if the query failed because the connection was lost
+     *
+     * @param t The reason the query failed.
+     */
+    private void failed(@NotNull Throwable t) {
+        boolean connectionLost = t instanceof SQLNonTransientConnectionException || t instanceof SQLTransientConnectionException
+                || t instanceof SQLException && ((SQLException) t).getSQLState() != null && ((SQLException) t).getSQLState().startsWith("08");
+        if (connectionLost) {
+            trip();
+        }
+    }
+
+    /**
+     * This function binds the values to the ? placeholders of the statement, in order
+     *
+     * @param statement The statement to bind the values to.
+     * @param params The values to bind.
+     */
+    private void bind(@NotNull PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+    }
+
+    @Override
+    public boolean hasIndex(@NotNull String table, @NotNull String index) {
+        return inspect(table, metaData -> metaData.getIndexInfo(connection.getCatalog(), null, tablePrefix + table, false, true),
+                "INDEX_NAME", index);
+    }
+
+    @Override
+    public boolean hasColumn(@NotNull String table, @NotNull String column) {
+        return inspect(table, metaData -> metaData.getColumns(connection.getCatalog(), null, tablePrefix + table, null),
+                "COLUMN_NAME", column);
+    }
+
+    /**
+     * This function looks for the name in the table metadata. Names are compared ignoring case, because databases
+     * differ in the case they store unquoted names in.
+     *
+     * @param table The name of the table without the table prefix.
+     * @param lookup Reads the metadata rows of the table.
+     * @param nameColumn The column of the metadata rows with the name.
+     * @param name The name to look for.
+     * @return Boolean
+     */
+    private boolean inspect(@NotNull String table, @NotNull MetaDataLookup lookup, @NotNull String nameColumn, @NotNull String name) {
+        lockConnection("metadata of " + table);
+        try (ResultSet results = lookup.read(connection.getMetaData())) {
+            while (results.next()) {
+                if (name.equalsIgnoreCase(results.getString(nameColumn))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            failed(e);
+            throw new BuildSystemException("Could not read metadata of table {0}", e, table);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    @Override
+    public QueryStats getQueryStats() {
+        return queryStats;
+    }
+
+    @Override
+    public String getTablePrefix() {
+        return tablePrefix;
+    }
+
+    @Override
+    public State getState() {
+        return state.get();
+    }
+
+    @Override
+    public long getRetryIn() {
+        return state.get() == State.CLOSED ? 0 : Math.max(0, retryAt - System.currentTimeMillis());
+    }
+
+    @Override
+    public void disconnect() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+        synchronized (this) {
+            retryAt = Long.MAX_VALUE;
+            state.set(State.OPEN);
+        }
+        // statements that are running are given time to finish, new ones fail fast as the circuit is open
+        boolean locked = false;
+        try {
+            locked = connectionLock.tryLock(DISCONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            synchronized (this) {
+                close(connection);
+                connection = null;
+            }
+        } finally {
+            if (locked) {
+                connectionLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return state.get() == State.CLOSED;
+    }
+
+    /**
+     * This function checks the connection with a round trip to the database
+     *
+     * @return Boolean
+     */
+    private boolean isValid() {
+        // the connection is in use, a statement that fails on it opens the circuit anyway
+        if (!connectionLock.tryLock()) return true;
+        try {
+            Connection current = connection;
+            return current != null && !current.isClosed() && current.isValid(5);
+        } catch (Exception ignored) {
+            return false;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private interface MetaDataLookup {
+        ResultSet read(DatabaseMetaData metaData) throws SQLException;
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+}
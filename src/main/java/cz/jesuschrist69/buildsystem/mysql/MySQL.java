@@ -1,129 +1,64 @@
 package cz.jesuschrist69.buildsystem.mysql;
 
-import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
-import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.sql.SQLException;
 
-public class MySQL {
+/**
+ * Storage backed by a MySQL server. It can be shared by several servers.
+ */
+public class MySQL extends JdbcStorage {
 
     private final MysqlCredentials credentials;
-    private boolean connected = false;
-
-    private Connection connection;
+    private volatile long maxPacketSize;
 
     public MySQL(@NotNull MysqlCredentials credentials) {
+        super(credentials.getTablePrefix(), credentials.getFetchSize());
         this.credentials = credentials;
 
-        connect();
+        open();
     }
 
-    /**
-     * Method used to establish connection with MySQL database
-     */
-    private void connect() {
-        try {
-            synchronized (this) {
-                if (isConnected()) return;
-                Class.forName("com.mysql.jdbc.Driver");
-                connection = DriverManager.getConnection(
-                        "jdbc:mysql://" + credentials.getHost() + ":" + credentials.getPort() + "/"
-                                + credentials.getDatabase(), credentials.getUsername(), credentials.getPassword()
-                );
-                connected = true;
-            }
-        } catch (Throwable ignored) {
-            connected = false;
-        } finally {
-            if (connected) {
-                execute(new SqlBuilder.Create(credentials.getTablePrefix() + "world_data")
-                        .ifNotExists()
-                        .columns("name", "locked", "hidden", "owner", "created_at", "world_type")
-                        .columnTypes("VARCHAR(64) NOT NULL PRIMARY KEY", "INTEGER", "INTEGER", "VARCHAR(16)", "TIMESTAMP", "TEXT")
-                        .build());
-            }
-        }
+    @Override
+    public String getType() {
+        return "mysql";
     }
 
-    /**
-     * "If we're not connected, try to connect, then execute the query."
-     *
-     * The first thing we do is check if we're connected. If we're not, we try to connect. If we can't connect, we throw a
-     * BuildSystemException with more details
-     *
-     * @param query The query to execute.
-     */
-    public void execute(@NotNull String query) {
-        if (!isConnected()) {
-            try {
-                connect();
-            } catch (Throwable t) {
-                t.printStackTrace();
-                throw new BuildSystemException("Could not connect to MySQL database. Skipping query {0}", t, query);
-            }
-        }
-        query = query.replaceAll("%mysql-table-prefix%", credentials.getTablePrefix());
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.execute();
-        } catch (Throwable t) {
-            throw new BuildSystemException("Could not execute query: {0}", t, query);
-        }
+    @Override
+    protected String getDriver() {
+        return "com.mysql.jdbc.Driver";
     }
 
-    /**
-     * "If we're not connected, connect, then execute the query and return the result set."
-     *
-     * The first thing we do is check if we're connected. If we're not, we try to connect. If we can't connect, we throw a
-     * BuildSystemException with more details.
-     *
-     * @param query The query to execute.
-     * @return {@link ResultSet}
-     */
-    public ResultSet getResult(@NotNull String query) {
-        if (!isConnected()) {
-            try {
-                connect();
-            } catch (Throwable t) {
-                throw new BuildSystemException("Could not connect to MySQL database. Skipping query {0}", t, query);
-            }
-        }
-        query = query.replaceAll("%mysql-table-prefix%", credentials.getTablePrefix());
-        try {
-            PreparedStatement statement = connection.prepareStatement(query);
-            return statement.executeQuery();
-        } catch (Throwable t) {
-            throw new BuildSystemException("Could not execute query: {0}", t, query);
-        }
+    @Override
+    protected Connection openConnection() throws SQLException {
+        // batches are sent as one multi-row statement, and without cursor fetch the driver reads the whole result
+        // into memory no matter the fetch size
+        return DriverManager.getConnection(
+                "jdbc:mysql://" + credentials.getHost() + ":" + credentials.getPort() + "/"
+                        + credentials.getDatabase() + "?rewriteBatchedStatements=true"
+                        + (credentials.getFetchSize() > 0 ? "&useCursorFetch=true" : ""),
+                credentials.getUsername(), credentials.getPassword()
+        );
     }
 
-    /**
-     * Method used to disconnect from database
-     */
-    public void disconnect() {
-        if (connected) {
-            connected = false;
-            try {
-                connection.close();
-            } catch (Exception ignored) {
-            }
+    @Override
+    protected long getMaxPacketSize() {
+        if (maxPacketSize == 0) {
+            maxPacketSize = queryFirst("SELECT @@max_allowed_packet", row -> row.getLong(1)).orElse(super.getMaxPacketSize());
         }
+        return maxPacketSize;
     }
 
-    /**
-     * Check if connection with database is valid
-     *
-     * @return {@link Boolean}
-     */
-    public boolean isConnected() {
-        try {
-            return connected && connection != null && !connection.isClosed() && connection.isValid(5);
-        } catch (Exception ignored) {}
+    @Override
+    public boolean lock(@NotNull String name, int timeout) {
+        return queryFirst("SELECT GET_LOCK(?, ?)", row -> row.getInt(1), name, timeout).orElse(0) == 1;
+    }
 
-        return false;
+    @Override
+    public void unlock(@NotNull String name) {
+        execute("SELECT RELEASE_LOCK(?)", name);
     }
 
 }
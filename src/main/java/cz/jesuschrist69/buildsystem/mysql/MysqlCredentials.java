@@ -12,5 +12,6 @@ public class MysqlCredentials {
     private final String database;
     private final String tablePrefix;
     private final boolean autoReconnect;
+    private final int fetchSize;
 
 }
@@ -0,0 +1,70 @@
+package cz.jesuschrist69.buildsystem.mysql;
+
+import cz.jesuschrist69.buildsystem.mysql.builder.BulkInsert;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlTemplate;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Statements the plugin executes over and over, built once when the class is loaded.
+ */
+@UtilityClass
+public class Queries {
+
+    private static final String WORLD_DATA = SqlTemplate.TABLE_PREFIX + "world_data";
+    private static final String WORLD_CHANGES = SqlTemplate.TABLE_PREFIX + "world_changes";
+    private static final String SYNC_NODES = SqlTemplate.TABLE_PREFIX + "sync_nodes";
+
+    public static final SqlTemplate SELECT_WORLDS = new SqlBuilder.Select(WORLD_DATA)
+            .columns("*")
+            .compile();
+
+    public static final SqlTemplate SELECT_WORLD_STATE = new SqlBuilder.Select(WORLD_DATA)
+            .columns("hidden", "locked", "version")
+            .where("name = ?")
+            .compile();
+
+    // a world created again under the name of a world whose row was left behind replaces the row
+    public static final SqlTemplate INSERT_WORLD = new SqlBuilder.Insert(WORLD_DATA)
+            .columns("name", "locked", "hidden", "owner", "created_at", "world_type")
+            .parameters()
+            .onDuplicateKeyUpdate("locked", "hidden", "owner", "created_at", "world_type")
+            .onDuplicateKeySet("version = version + 1")
+            .compile();
+
+    // worlds that are registered already are kept as they are
+    public static final BulkInsert REGISTER_WORLDS = new SqlBuilder.Insert(WORLD_DATA)
+            .columns("name", "locked", "hidden", "owner", "created_at", "world_type")
+            .parameters()
+            .onDuplicateKeySet("name = name")
+            .compileBulk();
+
+    public static final SqlTemplate UPDATE_WORLD_STATE = new SqlBuilder.Update(WORLD_DATA)
+            .set("hidden = ?", "locked = ?", "version = version + 1")
+            .where("name = ?", "version = ?")
+            .compile();
+
+    public static final SqlTemplate DELETE_WORLD = new SqlBuilder.Delete(WORLD_DATA)
+            .where("name = ?")
+            .compile();
+
+    public static final SqlTemplate SELECT_LAST_CHANGE = new SqlBuilder.Select(WORLD_CHANGES)
+            .columns("COALESCE(MAX(seq), 0)")
+            .compile();
+
+    public static final SqlTemplate INSERT_CHANGE = new SqlTemplate("INSERT INTO " + WORLD_CHANGES
+            + " (world, action, node, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)");
+
+    public static final SqlTemplate DELETE_SEEN_CHANGES = new SqlBuilder.Delete(WORLD_CHANGES)
+            .where("seq <= ?")
+            .compile();
+
+    public static final SqlTemplate UPSERT_NODE = new SqlTemplate("INSERT INTO " + SYNC_NODES
+            + " (node, last_seq, seen_at) VALUES (?, ?, CURRENT_TIMESTAMP)"
+            + " ON DUPLICATE KEY UPDATE last_seq = VALUES(last_seq), seen_at = VALUES(seen_at)");
+
+    public static final SqlTemplate DELETE_NODE = new SqlBuilder.Delete(SYNC_NODES)
+            .where("node = ?")
+            .compile();
+
+}
@@ -0,0 +1,23 @@
+package cz.jesuschrist69.buildsystem.mysql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Turns the current row of a result set into an object. The result set must not be kept or moved, it is closed once
+ * the query is read.
+ *
+ * @param <T> The type of the objects rows are turned into.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * This function turns the current row into an object
+     *
+     * @param row The result set positioned at the row.
+     * @return T - the object of the row
+     */
+    T map(ResultSet row) throws SQLException;
+
+}
@@ -0,0 +1,148 @@
+package cz.jesuschrist69.buildsystem.mysql;
+
+import cz.jesuschrist69.buildsystem.mysql.builder.BulkInsert;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlTemplate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Executes statements against the database. Table names start with {@link SqlTemplate#TABLE_PREFIX}, which is
+ * replaced by the table prefix of the storage.
+ */
+public interface SqlExecutor {
+
+    /**
+     * This function executes the query. While the database is unavailable it fails fast with a BuildSystemException
+     * and does not try to reconnect, reconnecting is left to the background check of the storage.
+     *
+     * @param query The query to execute.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     */
+    void execute(@NotNull String query, Object... params);
+
+    /**
+     * This function executes the template, see {@link #execute(String, Object...)}
+     *
+     * @param template The statement to execute.
+     * @param params Values bound to the ? placeholders of the statement, in order.
+     */
+    void execute(@NotNull SqlTemplate template, Object... params);
+
+    /**
+     * This function executes INSERT, UPDATE or DELETE statement and returns the number of affected rows
+     *
+     * @param query The statement to execute.
+     * @param params Values bound to the ? placeholders of the statement, in order.
+     * @return Integer - number of affected rows
+     */
+    int executeUpdate(@NotNull String query, Object... params);
+
+    /**
+     * This function executes the template and returns the number of affected rows, see
+     * {@link #executeUpdate(String, Object...)}
+     *
+     * @param template The statement to execute.
+     * @param params Values bound to the ? placeholders of the statement, in order.
+     * @return Integer - number of affected rows
+     */
+    int executeUpdate(@NotNull SqlTemplate template, Object... params);
+
+    /**
+     * This function executes the statement once for every row of values in one round trip. Unless it is called in a
+     * transaction, all executions are committed together.
+     *
+     * @param query The statement to execute.
+     * @param rows Values bound to the ? placeholders of the statement, one array for every execution.
+     * @return int[] - number of affected rows of every execution
+     */
+    int[] executeBatch(@NotNull String query, @NotNull List<Object[]> rows);
+
+    /**
+     * This function executes the template once for every row of values, see {@link #executeBatch(String, List)}
+     *
+     * @param template The statement to execute.
+     * @param rows Values bound to the ? placeholders of the statement, one array for every execution.
+     * @return int[] - number of affected rows of every execution
+     */
+    int[] executeBatch(@NotNull SqlTemplate template, @NotNull List<Object[]> rows);
+
+    /**
+     * This function inserts all rows with as few statements as the database accepts. Rows are split into statements
+     * that stay well under the largest packet the database accepts. Unless it is called in a transaction, all
+     * statements are committed together.
+     *
+     * @param insert The statement to insert the rows with.
+     * @param rows Values of the rows, one array for every row in the order of the columns.
+     * @return Integer - number of affected rows, as reported by the database
+     */
+    int insertAll(@NotNull BulkInsert insert, @NotNull List<Object[]> rows);
+
+    /**
+     * This function executes the query and turns every row into an object. The statement and result set are closed
+     * before it returns.
+     *
+     * @param query The query to execute.
+     * @param mapper Turns rows into objects.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     * @return List<T> - objects of all rows, in order
+     */
+    <T> List<T> query(@NotNull String query, @NotNull RowMapper<T> mapper, Object... params);
+
+    /**
+     * This function executes the template and turns every row into an object, see
+     * {@link #query(String, RowMapper, Object...)}
+     *
+     * @param template The query to execute.
+     * @param mapper Turns rows into objects.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     * @return List<T> - objects of all rows, in order
+     */
+    <T> List<T> query(@NotNull SqlTemplate template, @NotNull RowMapper<T> mapper, Object... params);
+
+    /**
+     * This function executes the query and turns the first row into an object, the other rows are not read
+     *
+     * @param query The query to execute.
+     * @param mapper Turns the row into an object.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     * @return Optional<T> - the object of the first row, empty if there is no row
+     */
+    <T> Optional<T> queryFirst(@NotNull String query, @NotNull RowMapper<T> mapper, Object... params);
+
+    /**
+     * This function executes the template and turns the first row into an object, see
+     * {@link #queryFirst(String, RowMapper, Object...)}
+     *
+     * @param template The query to execute.
+     * @param mapper Turns the row into an object.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     * @return Optional<T> - the object of the first row, empty if there is no row
+     */
+    <T> Optional<T> queryFirst(@NotNull SqlTemplate template, @NotNull RowMapper<T> mapper, Object... params);
+
+    /**
+     * This function executes the query and passes every row to the action as it is read, so large tables are never
+     * held in memory at once. The statement and result set are closed before it returns.
+     *
+     * @param query The query to execute.
+     * @param mapper Turns rows into objects.
+     * @param action Receives the objects, in order.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     */
+    <T> void forEach(@NotNull String query, @NotNull RowMapper<T> mapper, @NotNull Consumer<T> action, Object... params);
+
+    /**
+     * This function executes the template and passes every row to the action as it is read, see
+     * {@link #forEach(String, RowMapper, Consumer, Object...)}
+     *
+     * @param template The query to execute.
+     * @param mapper Turns rows into objects.
+     * @param action Receives the objects, in order.
+     * @param params Values bound to the ? placeholders of the query, in order.
+     */
+    <T> void forEach(@NotNull SqlTemplate template, @NotNull RowMapper<T> mapper, @NotNull Consumer<T> action, Object... params);
+
+}
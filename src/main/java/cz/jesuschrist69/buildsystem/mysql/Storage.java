@@ -0,0 +1,118 @@
+package cz.jesuschrist69.buildsystem.mysql;
+
+import cz.jesuschrist69.buildsystem.mysql.stats.QueryStats;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * Database the plugin keeps its data in. Statements are written in the MySQL dialect, every storage must accept the
+ * statements of {@link Queries} and of the schema migrations.
+ */
+public interface Storage extends SqlExecutor {
+
+    enum State {
+        /**
+         * The connection is valid and queries are executed.
+         */
+        CLOSED,
+        /**
+         * The database is unreachable, queries fail without touching the network.
+         */
+        OPEN,
+        /**
+         * The connection is being re-established, queries fail until it succeeds.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * This method returns the name of the storage type, as it is written in credentials.yml.
+     *
+     * @return String
+     */
+    String getType();
+
+    /**
+     * This function runs the work in a transaction. Everything the work executes is committed together once it
+     * returns, or rolled back if it throws. A transaction started inside another one joins it.
+     *
+     * @param work The statements to execute in the transaction.
+     */
+    void transaction(@NotNull Consumer<Transaction> work);
+
+    /**
+     * This function checks if the table has index with the given name
+     *
+     * @param table The name of the table without the table prefix.
+     * @param index The name of the index.
+     * @return Boolean
+     */
+    boolean hasIndex(@NotNull String table, @NotNull String index);
+
+    /**
+     * This function checks if the table has column with the given name
+     *
+     * @param table The name of the table without the table prefix.
+     * @param column The name of the column.
+     * @return Boolean
+     */
+    boolean hasColumn(@NotNull String table, @NotNull String column);
+
+    /**
+     * This function acquires the named lock, which is shared by all servers that use the same database
+     *
+     * @param name The name of the lock.
+     * @param timeout Seconds to wait for the lock.
+     * @return Boolean - true if the lock was acquired
+     */
+    boolean lock(@NotNull String name, int timeout);
+
+    /**
+     * This function releases the named lock acquired by {@link #lock(String, int)}
+     *
+     * @param name The name of the lock.
+     */
+    void unlock(@NotNull String name);
+
+    /**
+     * This method returns the latency statistics of statements executed by this storage.
+     *
+     * @return QueryStats
+     */
+    QueryStats getQueryStats();
+
+    /**
+     * This method returns the prefix of all tables that belong to this plugin.
+     *
+     * @return String
+     */
+    String getTablePrefix();
+
+    /**
+     * This method returns the state of the circuit
+     *
+     * @return State
+     */
+    State getState();
+
+    /**
+     * This function returns the time until the next reconnect attempt, 0 while the circuit is closed
+     *
+     * @return Long - milliseconds until the next reconnect attempt
+     */
+    long getRetryIn();
+
+    /**
+     * Check if connection with database is usable. It does not touch the network, liveness is checked in the background.
+     *
+     * @return {@link Boolean}
+     */
+    boolean isConnected();
+
+    /**
+     * Method used to disconnect from database
+     */
+    void disconnect();
+
+}
@@ -0,0 +1,10 @@
+package cz.jesuschrist69.buildsystem.mysql;
+
+import java.util.function.Consumer;
+
+/**
+ * Executes statements in the transaction started by {@link Storage#transaction(Consumer)}. It must not be used once the
+ * work of the transaction returned.
+ */
+public interface Transaction extends SqlExecutor {
+}
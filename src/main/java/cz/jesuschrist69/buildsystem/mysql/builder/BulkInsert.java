@@ -0,0 +1,69 @@
+package cz.jesuschrist69.buildsystem.mysql.builder;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable INSERT statement that inserts any number of rows at once. The statement for every number of rows is built
+ * the first time it is needed and kept, like {@link SqlTemplate}.
+ */
+public final class BulkInsert {
+
+    private final String head;
+    private final String row;
+    private final String tail;
+    private final int columnCount;
+    private final Map<Integer, SqlTemplate> templates = new ConcurrentHashMap<>();
+
+    BulkInsert(@NotNull String head, @NotNull String row, @NotNull String tail, int columnCount) {
+        this.head = head;
+        this.row = row;
+        this.tail = tail;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * This method returns the number of values of one row.
+     *
+     * @return Integer
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * This function returns the length of the statement text for the given number of rows, without the table prefix
+     *
+     * @param rows The number of rows.
+     * @return Long - the length in characters
+     */
+    public long getLength(int rows) {
+        return head.length() + (long) rows * (row.length() + 2) + tail.length();
+    }
+
+    /**
+     * This function returns the statement that inserts the given number of rows
+     *
+     * @param rows The number of rows.
+     * @return SqlTemplate - the statement
+     */
+    public SqlTemplate forRows(int rows) {
+        assert rows > 0 : "Insert must have at least one row.";
+        return templates.computeIfAbsent(rows, count -> {
+            StringBuilder builder = new StringBuilder(head.length() + count * (row.length() + 2) + tail.length());
+            builder.append(head).append(row);
+            for (int i = 1; i < count; i++) {
+                builder.append(", ").append(row);
+            }
+            return new SqlTemplate(builder.append(tail).toString());
+        });
+    }
+
+    @Override
+    public String toString() {
+        return head + row + tail;
+    }
+
+}
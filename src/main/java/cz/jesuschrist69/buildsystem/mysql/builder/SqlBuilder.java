@@ -5,6 +5,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,23 +21,42 @@ public class SqlBuilder {
         throw new BuildSystemException("Cannot instantiate utility class.");
     }
 
+    /**
+     * This function adds the values to the list, the list is created only when it is needed. Most statements use only
+     * a few of the clauses a builder supports, so most lists are never created.
+     *
+     * @param list The list to add to, may be null.
+     * @param values The values to add.
+     * @return The list with the values.
+     */
+    private static List<String> append(List<String> list, String[] values) {
+        if (values.length == 0) {
+            return list;
+        }
+        if (list == null) {
+            list = new ArrayList<>(Math.max(values.length, 4));
+        }
+        Collections.addAll(list, values);
+        return list;
+    }
+
     public static class Select {
         private boolean distinct = false;
         private final List<String> tables = new ArrayList<>();
-        private final List<String> columns = new ArrayList<>();
-        private final List<String> where = new ArrayList<>();
-        private final List<String> orderBy = new ArrayList<>();
-        private final List<String> groupBy = new ArrayList<>();
-        private final List<String> having = new ArrayList<>();
-        private final List<String> join = new ArrayList<>();
-        private final List<String> leftJoin = new ArrayList<>();
-        private final List<String> rightJoin = new ArrayList<>();
-        private final List<String> innerJoin = new ArrayList<>();
-        private final List<String> outerJoin = new ArrayList<>();
-        private final List<String> fullJoin = new ArrayList<>();
-        private final List<String> crossJoin = new ArrayList<>();
-        private final List<String> union = new ArrayList<>();
-        private final List<String> unionAll = new ArrayList<>();
+        private List<String> columns;
+        private List<String> where;
+        private List<String> orderBy;
+        private List<String> groupBy;
+        private List<String> having;
+        private List<String> join;
+        private List<String> leftJoin;
+        private List<String> rightJoin;
+        private List<String> innerJoin;
+        private List<String> outerJoin;
+        private List<String> fullJoin;
+        private List<String> crossJoin;
+        private List<String> union;
+        private List<String> unionAll;
         private int limit = 0;
         private int offset = 0;
 
@@ -61,7 +81,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select columns(@NotNull String... columns) {
-            this.columns.addAll(Arrays.asList(columns));
+            this.columns = append(this.columns, columns);
             return this;
         }
 
@@ -71,7 +91,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select where(@NotNull String... where) {
-            this.where.addAll(Arrays.asList(where));
+            this.where = append(this.where, where);
             return this;
         }
 
@@ -81,7 +101,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select orderBy(@NotNull String... orderBy) {
-            this.orderBy.addAll(Arrays.asList(orderBy));
+            this.orderBy = append(this.orderBy, orderBy);
             return this;
         }
 
@@ -91,7 +111,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select groupBy(@NotNull String... groupBy) {
-            this.groupBy.addAll(Arrays.asList(groupBy));
+            this.groupBy = append(this.groupBy, groupBy);
             return this;
         }
 
@@ -101,7 +121,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select having(@NotNull String... having) {
-            this.having.addAll(Arrays.asList(having));
+            this.having = append(this.having, having);
             return this;
         }
 
@@ -111,7 +131,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select join(@NotNull String... join) {
-            this.join.addAll(Arrays.asList(join));
+            this.join = append(this.join, join);
             return this;
         }
 
@@ -121,7 +141,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select leftJoin(@NotNull String... leftJoin) {
-            this.leftJoin.addAll(Arrays.asList(leftJoin));
+            this.leftJoin = append(this.leftJoin, leftJoin);
             return this;
         }
 
@@ -131,7 +151,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select rightJoin(@NotNull String... rightJoin) {
-            this.rightJoin.addAll(Arrays.asList(rightJoin));
+            this.rightJoin = append(this.rightJoin, rightJoin);
             return this;
         }
 
@@ -141,7 +161,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select innerJoin(@NotNull String... innerJoin) {
-            this.innerJoin.addAll(Arrays.asList(innerJoin));
+            this.innerJoin = append(this.innerJoin, innerJoin);
             return this;
         }
 
@@ -151,7 +171,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select outerJoin(@NotNull String... outerJoin) {
-            this.outerJoin.addAll(Arrays.asList(outerJoin));
+            this.outerJoin = append(this.outerJoin, outerJoin);
             return this;
         }
 
@@ -161,7 +181,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select fullJoin(@NotNull String... fullJoin) {
-            this.fullJoin.addAll(Arrays.asList(fullJoin));
+            this.fullJoin = append(this.fullJoin, fullJoin);
             return this;
         }
 
@@ -171,7 +191,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select crossJoin(@NotNull String... crossJoin) {
-            this.crossJoin.addAll(Arrays.asList(crossJoin));
+            this.crossJoin = append(this.crossJoin, crossJoin);
             return this;
         }
 
@@ -181,7 +201,7 @@ public class SqlBuilder {
          * @return The Select object
          */
         public Select union(@NotNull String... union) {
-            this.union.addAll(Arrays.asList(union));
+            this.union = append(this.union, union);
             return this;
         }
 
@@ -191,7 +211,7 @@ public class SqlBuilder {
          * @return The Select object itself.
          */
         public Select unionAll(@NotNull String... unionAll) {
-            this.unionAll.addAll(Arrays.asList(unionAll));
+            this.unionAll = append(this.unionAll, unionAll);
             return this;
         }
 
@@ -229,26 +249,26 @@ public class SqlBuilder {
             if (distinct) {
                 builder.append("DISTINCT ");
             }
-            if (columns.isEmpty()) {
+            if (columns == null) {
                 builder.append("*");
             } else {
                 builder.append(String.join(", ", columns));
             }
             builder.append(" FROM ");
             builder.append(String.join(", ", tables));
-            if (!where.isEmpty()) {
+            if (where != null) {
                 builder.append(" WHERE ");
                 builder.append(String.join(" AND ", where));
             }
-            if (!groupBy.isEmpty()) {
+            if (groupBy != null) {
                 builder.append(" GROUP BY ");
                 builder.append(String.join(", ", groupBy));
             }
-            if (!having.isEmpty()) {
+            if (having != null) {
                 builder.append(" HAVING ");
                 builder.append(String.join(" AND ", having));
             }
-            if (!orderBy.isEmpty()) {
+            if (orderBy != null) {
                 builder.append(" ORDER BY ");
                 builder.append(String.join(", ", orderBy));
             }
@@ -260,44 +280,53 @@ public class SqlBuilder {
                 builder.append(" OFFSET ");
                 builder.append(offset);
             }
-            if (!join.isEmpty()) {
+            if (join != null) {
                 builder.append(" JOIN ");
                 builder.append(String.join(", ", join));
             }
-            if (!leftJoin.isEmpty()) {
+            if (leftJoin != null) {
                 builder.append(" LEFT JOIN ");
                 builder.append(String.join(", ", leftJoin));
             }
-            if (!rightJoin.isEmpty()) {
+            if (rightJoin != null) {
                 builder.append(" RIGHT JOIN ");
                 builder.append(String.join(", ", rightJoin));
             }
-            if (!innerJoin.isEmpty()) {
+            if (innerJoin != null) {
                 builder.append(" INNER JOIN ");
                 builder.append(String.join(", ", innerJoin));
             }
-            if (!outerJoin.isEmpty()) {
+            if (outerJoin != null) {
                 builder.append(" OUTER JOIN ");
                 builder.append(String.join(", ", outerJoin));
             }
-            if (!fullJoin.isEmpty()) {
+            if (fullJoin != null) {
                 builder.append(" FULL JOIN ");
                 builder.append(String.join(", ", fullJoin));
             }
-            if (!crossJoin.isEmpty()) {
+            if (crossJoin != null) {
                 builder.append(" CROSS JOIN ");
                 builder.append(String.join(", ", crossJoin));
             }
-            if (!union.isEmpty()) {
+            if (union != null) {
                 builder.append(" UNION ");
                 builder.append(String.join(", ", union));
             }
-            if (!unionAll.isEmpty()) {
+            if (unionAll != null) {
                 builder.append(" UNION ALL ");
                 builder.append(String.join(", ", unionAll));
             }
             return builder.toString();
         }
+
+        /**
+         * This function builds the statement once into a template that can be executed many times
+         *
+         * @return SqlTemplate - the built statement
+         */
+        public SqlTemplate compile() {
+            return new SqlTemplate(build());
+        }
     }
 
     public static class Update {
@@ -306,6 +335,7 @@ public class SqlBuilder {
         private final List<String> columns = new ArrayList<>();
         private final List<String> values = new ArrayList<>();
         private final List<String> where = new ArrayList<>();
+        private List<String> assignments;
 
         public Update(@NotNull String table) {
             this.table = table;
@@ -331,6 +361,16 @@ public class SqlBuilder {
             return this;
         }
 
+        /**
+         * This function adds assignments that are used as they are, like "version = version + 1" or "hidden = ?"
+         *
+         * @return The Update object itself.
+         */
+        public Update set(@NotNull String... assignments) {
+            this.assignments = append(this.assignments, assignments);
+            return this;
+        }
+
         /**
          * > Adds the given strings to the list of where clauses
          *
@@ -365,6 +405,12 @@ public class SqlBuilder {
                     builder.append(", ");
                 }
             }
+            if (assignments != null) {
+                if (!columns.isEmpty()) {
+                    builder.append(", ");
+                }
+                builder.append(String.join(", ", assignments));
+            }
             if (!where.isEmpty()) {
                 builder.append(" WHERE ");
                 builder.append(String.join(" AND ", where));
@@ -372,6 +418,15 @@ public class SqlBuilder {
             return builder.toString();
         }
 
+        /**
+         * This function builds the statement once into a template that can be executed many times
+         *
+         * @return SqlTemplate - the built statement
+         */
+        public SqlTemplate compile() {
+            return new SqlTemplate(build());
+        }
+
     }
 
     public static class Insert {
@@ -379,6 +434,9 @@ public class SqlBuilder {
         private final String table;
         private final List<String> columns = new ArrayList<>();
         private final List<String> values = new ArrayList<>();
+        private boolean parameters = false;
+        private int rows = 1;
+        private List<String> duplicateKeyUpdate;
 
         public Insert(@NotNull String table) {
             this.table = table;
@@ -404,6 +462,55 @@ public class SqlBuilder {
             return this;
         }
 
+        /**
+         * This function makes the statement take its values from ? placeholders, one for every column
+         *
+         * @return The Insert object itself.
+         */
+        public Insert parameters() {
+            this.parameters = true;
+            return this;
+        }
+
+        /**
+         * This function makes the statement insert the given number of rows, each with its own ? placeholders. It only
+         * works together with {@link #parameters()}.
+         *
+         * @param rows The number of rows.
+         * @return The Insert object itself.
+         */
+        public Insert rows(int rows) {
+            assert rows > 0 : "Insert must have at least one row.";
+            this.rows = rows;
+            return this;
+        }
+
+        /**
+         * This function makes rows whose key exists already update the given columns to the inserted values, instead of
+         * failing
+         *
+         * @return The Insert object itself.
+         */
+        public Insert onDuplicateKeyUpdate(@NotNull String... columns) {
+            String[] assignments = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                assignments[i] = "`" + columns[i] + "` = VALUES(`" + columns[i] + "`)";
+            }
+            this.duplicateKeyUpdate = append(this.duplicateKeyUpdate, assignments);
+            return this;
+        }
+
+        /**
+         * This function adds assignments that are used as they are when the key of a row exists already, like
+         * "version = version + 1". "name = name" keeps existing rows as they are.
+         *
+         * @return The Insert object itself.
+         */
+        public Insert onDuplicateKeySet(@NotNull String... assignments) {
+            this.duplicateKeyUpdate = append(this.duplicateKeyUpdate, assignments);
+            return this;
+        }
+
         /**
          * "If the number of columns is not equal to the number of values, throw an error. Otherwise, build the query."
          *
@@ -414,16 +521,54 @@ public class SqlBuilder {
          * @return A string that is the SQL query.
          */
         public String build() {
-            assert columns.size() == values.size() : "Columns and values must have the same size! Columns: " + columns.size() + ", values: " + values.size();
-            StringBuilder builder = new StringBuilder();
-            builder.append("INSERT INTO ");
-            builder.append(table);
-            builder.append(" (`");
-            builder.append(String.join("`, `", columns));
-            builder.append("`) VALUES ('");
-            builder.append(String.join("', '", values));
-            builder.append("')");
-            return builder.toString();
+            assert parameters || columns.size() == values.size() : "Columns and values must have the same size! Columns: " + columns.size() + ", values: " + values.size();
+            assert parameters || rows == 1 : "Only statements with parameters can insert more rows.";
+            StringBuilder builder = new StringBuilder(head());
+            if (parameters) {
+                String row = row();
+                builder.append(row);
+                for (int i = 1; i < rows; i++) {
+                    builder.append(", ").append(row);
+                }
+            } else {
+                builder.append("('");
+                builder.append(String.join("', '", values));
+                builder.append("')");
+            }
+            return builder.append(tail()).toString();
+        }
+
+        /**
+         * This function builds the statement once into a template for any number of rows. Bulk inserts through
+         * {@link cz.jesuschrist69.buildsystem.mysql.SqlExecutor#insertAll(BulkInsert, List)} are split into as few
+         * statements as the database accepts.
+         *
+         * @return BulkInsert - the built statement
+         */
+        public BulkInsert compileBulk() {
+            assert parameters : "Bulk inserts take their values from parameters.";
+            return new BulkInsert(head(), row(), tail(), columns.size());
+        }
+
+        private String head() {
+            return "INSERT INTO " + table + " (`" + String.join("`, `", columns) + "`) VALUES ";
+        }
+
+        private String row() {
+            return "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        }
+
+        private String tail() {
+            return duplicateKeyUpdate == null ? "" : " ON DUPLICATE KEY UPDATE " + String.join(", ", duplicateKeyUpdate);
+        }
+
+        /**
+         * This function builds the statement once into a template that can be executed many times
+         *
+         * @return SqlTemplate - the built statement
+         */
+        public SqlTemplate compile() {
+            return new SqlTemplate(build());
         }
 
     }
@@ -463,6 +608,15 @@ public class SqlBuilder {
             return builder.toString();
         }
 
+        /**
+         * This function builds the statement once into a template that can be executed many times
+         *
+         * @return SqlTemplate - the built statement
+         */
+        public SqlTemplate compile() {
+            return new SqlTemplate(build());
+        }
+
     }
 
     public static class Create {
@@ -599,10 +753,12 @@ public class SqlBuilder {
     public static class Alter {
 
         private final String table;
-        private final List<String> addColumn = new ArrayList<>();
-        private final List<String> dropColumn = new ArrayList<>();
-        private final List<String> renameColumn = new ArrayList<>();
-        private final List<String> changeType = new ArrayList<>();
+        private List<String> addColumn;
+        private List<String> dropColumn;
+        private List<String> renameColumn;
+        private List<String> changeType;
+        private List<String> addIndex;
+        private List<String> dropIndex;
 
         private String addPrimaryKey;
         private boolean dropPrimaryKey = false;
@@ -617,7 +773,7 @@ public class SqlBuilder {
          * @return The Alter object
          */
         public Alter addColumns(@NotNull String... columns) {
-            this.addColumn.addAll(Arrays.asList(columns));
+            this.addColumn = append(this.addColumn, columns);
             return this;
         }
 
@@ -627,7 +783,7 @@ public class SqlBuilder {
          * @return The Alter object itself.
          */
         public Alter dropColumns(@NotNull String... columns) {
-            this.dropColumn.addAll(Arrays.asList(columns));
+            this.dropColumn = append(this.dropColumn, columns);
             return this;
         }
 
@@ -637,7 +793,7 @@ public class SqlBuilder {
          * @return The Alter object
          */
         public Alter renameColumns(@NotNull String... columns) {
-            this.renameColumn.addAll(Arrays.asList(columns));
+            this.renameColumn = append(this.renameColumn, columns);
             return this;
         }
 
@@ -647,7 +803,30 @@ public class SqlBuilder {
          * @return The Alter object itself.
          */
         public Alter changeTypes(@NotNull String... columns) {
-            this.changeType.addAll(Arrays.asList(columns));
+            this.changeType = append(this.changeType, columns);
+            return this;
+        }
+
+        /**
+         * > Adds an index with the given name over the given columns
+         *
+         * @param name The name of the index.
+         * @return The Alter object itself.
+         */
+        public Alter addIndex(@NotNull String name, @NotNull String... columns) {
+            assert columns.length > 0 : "Index " + name + " must have at least one column.";
+            this.addIndex = append(this.addIndex, new String[]{name + " (" + String.join(", ", columns) + ")"});
+            return this;
+        }
+
+        /**
+         * > Drops the index with the given name
+         *
+         * @param name The name of the index.
+         * @return The Alter object itself.
+         */
+        public Alter dropIndex(@NotNull String name) {
+            this.dropIndex = append(this.dropIndex, new String[]{name});
             return this;
         }
 
@@ -685,19 +864,19 @@ public class SqlBuilder {
             StringBuilder builder = new StringBuilder();
             builder.append("ALTER TABLE ");
             builder.append(table);
-            if (!addColumn.isEmpty()) {
+            if (addColumn != null) {
                 builder.append(" ADD COLUMN ");
                 builder.append(String.join(", ", addColumn));
             }
-            if (!dropColumn.isEmpty()) {
+            if (dropColumn != null) {
                 builder.append(" DROP COLUMN ");
                 builder.append(String.join(", ", dropColumn));
             }
-            if (!renameColumn.isEmpty()) {
+            if (renameColumn != null) {
                 builder.append(" RENAME COLUMN ");
                 builder.append(String.join(", ", renameColumn));
             }
-            if (!changeType.isEmpty()) {
+            if (changeType != null) {
                 builder.append(" CHANGE COLUMN ");
                 builder.append(String.join(", ", changeType));
             }
@@ -709,6 +888,14 @@ public class SqlBuilder {
             if (dropPrimaryKey) {
                 builder.append(" DROP PRIMARY KEY");
             }
+            if (addIndex != null) {
+                builder.append(" ADD INDEX ");
+                builder.append(String.join(", ADD INDEX ", addIndex));
+            }
+            if (dropIndex != null) {
+                builder.append(" DROP INDEX ");
+                builder.append(String.join(", DROP INDEX ", dropIndex));
+            }
             return builder.toString();
         }
 
@@ -0,0 +1,85 @@
+package cz.jesuschrist69.buildsystem.mysql.builder;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable statement that is built once and executed many times, values are passed through ? placeholders. The table
+ * prefix placeholder is resolved on the first execution and the resolved text is kept, so executing the template again
+ * does not build, scan or allocate any text.
+ */
+public final class SqlTemplate {
+
+    public static final String TABLE_PREFIX = "%mysql-table-prefix%";
+
+    private final String sql;
+    private volatile Resolved resolved;
+
+    public SqlTemplate(@NotNull String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * This method returns the statement with the table prefix placeholder.
+     *
+     * @return String
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * This function returns the statement with the table prefix placeholder replaced by the given prefix
+     *
+     * @param prefix The table prefix.
+     * @return String - the resolved statement
+     */
+    public String resolve(@NotNull String prefix) {
+        Resolved current = resolved;
+        if (current == null || !current.prefix.equals(prefix)) {
+            current = new Resolved(prefix, replacePrefix(sql, prefix));
+            resolved = current;
+        }
+        return current.sql;
+    }
+
+    /**
+     * This function replaces every table prefix placeholder in the statement with the prefix. Unlike
+     * {@link String#replaceAll(String, String)} it compiles no pattern and returns the statement itself when there is
+     * nothing to replace.
+     *
+     * @param sql The statement with placeholders.
+     * @param prefix The table prefix.
+     * @return String - the statement without placeholders
+     */
+    public static String replacePrefix(@NotNull String sql, @NotNull String prefix) {
+        int index = sql.indexOf(TABLE_PREFIX);
+        if (index < 0) {
+            return sql;
+        }
+        StringBuilder builder = new StringBuilder(sql.length() + 16);
+        int from = 0;
+        while (index >= 0) {
+            builder.append(sql, from, index).append(prefix);
+            from = index + TABLE_PREFIX.length();
+            index = sql.indexOf(TABLE_PREFIX, from);
+        }
+        return builder.append(sql, from, sql.length()).toString();
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    private static final class Resolved {
+
+        private final String prefix;
+        private final String sql;
+
+        private Resolved(String prefix, String sql) {
+            this.prefix = prefix;
+            this.sql = sql;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package cz.jesuschrist69.buildsystem.mysql.migration;
+
+import cz.jesuschrist69.buildsystem.mysql.Storage;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * One step of the database schema. Every migration must be safe to run again, because schema changes are not
+ * transactional and a node can stop between applying a migration and recording it.
+ */
+@Getter
+public class Migration {
+
+    private final int version;
+    private final String description;
+    private final Consumer<Storage> action;
+
+    public Migration(int version, @NotNull String description, @NotNull Consumer<Storage> action) {
+        assert version > 0 : "Migration version must be positive.";
+        this.version = version;
+        this.description = description;
+        this.action = action;
+    }
+
+    /**
+     * This function creates migration that executes the given statement. The statement itself must be idempotent, like
+     * CREATE TABLE IF NOT EXISTS.
+     *
+     * @param version The version of the schema after the migration.
+     * @param description What the migration does.
+     * @param statement The statement to execute.
+     * @return Migration - the migration
+     */
+    public static Migration statement(int version, @NotNull String description, @NotNull String statement) {
+        return new Migration(version, description, storage -> storage.execute(statement));
+    }
+
+    /**
+     * This function creates migration that adds index to the table, unless the table has index with that name already
+     *
+     * @param version The version of the schema after the migration.
+     * @param table The name of the table without the table prefix.
+     * @param index The name of the index.
+     * @param columns The indexed columns.
+     * @return Migration - the migration
+     */
+    public static Migration addIndex(int version, @NotNull String table, @NotNull String index, @NotNull String... columns) {
+        return new Migration(version, "Add index " + index + " on " + table, storage -> {
+            if (storage.hasIndex(table, index)) return;
+            // CREATE INDEX rather than ALTER TABLE ADD INDEX, which not every storage understands
+            storage.execute("CREATE INDEX " + index + " ON %mysql-table-prefix%" + table + " (" + String.join(", ", columns) + ")");
+        });
+    }
+
+    /**
+     * This function creates migration that adds column to the table, unless the table has column with that name already
+     *
+     * @param version The version of the schema after the migration.
+     * @param table The name of the table without the table prefix.
+     * @param column The name of the column.
+     * @param definition The type and options of the column.
+     * @return Migration - the migration
+     */
+    public static Migration addColumn(int version, @NotNull String table, @NotNull String column, @NotNull String definition) {
+        return new Migration(version, "Add column " + column + " to " + table, storage -> {
+            if (storage.hasColumn(table, column)) return;
+            storage.execute(new SqlBuilder.Alter("%mysql-table-prefix%" + table)
+                    .addColumns(column + " " + definition)
+                    .build());
+        });
+    }
+
+    /**
+     * This function applies the migration
+     *
+     * @param storage The database to apply the migration to.
+     */
+    public void apply(@NotNull Storage storage) {
+        action.accept(storage);
+    }
+
+}
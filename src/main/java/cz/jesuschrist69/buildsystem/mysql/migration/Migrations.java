@@ -0,0 +1,39 @@
+package cz.jesuschrist69.buildsystem.mysql.migration;
+
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@UtilityClass
+public class Migrations {
+
+    /**
+     * All migrations of the plugin schema. Never change or remove a migration that was released, add a new one with a
+     * higher version instead.
+     */
+    public static final List<Migration> ALL = Collections.unmodifiableList(Arrays.asList(
+            Migration.statement(1, "Create world_data table", new SqlBuilder.Create("%mysql-table-prefix%" + "world_data")
+                    .ifNotExists()
+                    .columns("name", "locked", "hidden", "owner", "created_at", "world_type")
+                    .columnTypes("VARCHAR(64) NOT NULL PRIMARY KEY", "INTEGER", "INTEGER", "VARCHAR(16)", "TIMESTAMP", "TEXT")
+                    .build()),
+            Migration.addIndex(2, "world_data", "idx_world_data_owner", "owner"),
+            Migration.addIndex(3, "world_data", "idx_world_data_created_at", "created_at"),
+            Migration.addIndex(4, "world_data", "idx_world_data_hidden_owner", "hidden", "owner"),
+            Migration.statement(5, "Create world_changes table", new SqlBuilder.Create("%mysql-table-prefix%" + "world_changes")
+                    .ifNotExists()
+                    .columns("seq", "world", "action", "node", "created_at")
+                    .columnTypes("BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY", "VARCHAR(64) NOT NULL", "VARCHAR(16) NOT NULL", "VARCHAR(64)", "TIMESTAMP")
+                    .build()),
+            Migration.statement(6, "Create sync_nodes table", new SqlBuilder.Create("%mysql-table-prefix%" + "sync_nodes")
+                    .ifNotExists()
+                    .columns("node", "last_seq", "seen_at")
+                    .columnTypes("VARCHAR(64) NOT NULL PRIMARY KEY", "BIGINT NOT NULL", "TIMESTAMP")
+                    .build()),
+            Migration.addColumn(7, "world_data", "version", "INTEGER DEFAULT 0 NOT NULL")
+    ));
+
+}
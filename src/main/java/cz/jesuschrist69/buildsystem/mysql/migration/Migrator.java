@@ -0,0 +1,94 @@
+package cz.jesuschrist69.buildsystem.mysql.migration;
+
+import cz.jesuschrist69.buildsystem.exceptions.BuildSystemException;
+import cz.jesuschrist69.buildsystem.mysql.Storage;
+import cz.jesuschrist69.buildsystem.mysql.builder.SqlBuilder;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Brings the database schema to the latest version. The current version is stored in the schema_version table and
+ * only migrations with a higher version are applied, in order. Migrations run under a named database lock, so when
+ * several nodes start at once, only one of them applies them and the others wait and find nothing left to do.
+ */
+public class Migrator {
+
+    // seconds to wait for another node to finish its migrations
+    private static final int LOCK_TIMEOUT = 60;
+
+    private final Storage storage;
+    private final List<Migration> migrations;
+
+    public Migrator(@NotNull Storage storage, @NotNull Collection<Migration> migrations) {
+        this.storage = storage;
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i - 1).getVersion() == sorted.get(i).getVersion()) {
+                throw new BuildSystemException("Duplicate migration version {0}", sorted.get(i).getVersion());
+            }
+        }
+        this.migrations = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * This function applies all migrations newer than the current schema version
+     *
+     * @return List<Migration> - migrations applied by this call, empty if the schema was up to date
+     */
+    public List<Migration> migrate() {
+        String lock = lockName();
+        if (!storage.lock(lock, LOCK_TIMEOUT)) {
+            throw new BuildSystemException("Could not acquire migration lock {0} in {1} seconds", lock, LOCK_TIMEOUT);
+        }
+        try {
+            storage.execute(new SqlBuilder.Create("%mysql-table-prefix%" + "schema_version")
+                    .ifNotExists()
+                    .columns("version", "description", "applied_at")
+                    .columnTypes("INTEGER NOT NULL PRIMARY KEY", "VARCHAR(128)", "TIMESTAMP")
+                    .build());
+            int current = storage.queryFirst(new SqlBuilder.Select("%mysql-table-prefix%" + "schema_version")
+                    .columns("COALESCE(MAX(version), 0)")
+                    .build(), row -> row.getInt(1)).orElse(0);
+
+            List<Migration> applied = new ArrayList<>();
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= current) continue;
+                try {
+                    migration.apply(storage);
+                } catch (Exception e) {
+                    throw new BuildSystemException("Migration {0} ({1}) failed", e, migration.getVersion(), migration.getDescription());
+                }
+                storage.execute("INSERT INTO %mysql-table-prefix%schema_version (version, description, applied_at) VALUES (?, ?, ?)",
+                        migration.getVersion(), migration.getDescription(), new Timestamp(System.currentTimeMillis()));
+                applied.add(migration);
+            }
+            return applied;
+        } finally {
+            try {
+                storage.unlock(lock);
+            } catch (Exception ignored) {
+                // lock is released anyway when the connection closes
+            }
+        }
+    }
+
+    /**
+     * This function returns the name of the lock. Lock names are server wide, so the database and table prefix are
+     * part of it.
+     *
+     * @return String - the name of the lock
+     */
+    private String lockName() {
+        String name = "buildsystem." + storage.queryFirst("SELECT DATABASE()", row -> String.valueOf(row.getString(1))).orElse("") + "." + storage.getTablePrefix() + "migrations";
+        // MySQL limits lock names to 64 characters
+        return name.length() > 64 ? "buildsystem." + Integer.toHexString(name.hashCode()) + ".migrations" : name;
+    }
+
+}
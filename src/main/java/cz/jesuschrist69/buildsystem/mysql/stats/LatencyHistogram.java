@@ -0,0 +1,139 @@
+package cz.jesuschrist69.buildsystem.mysql.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records latencies without locking. Latencies are counted in microsecond buckets, every power of two is split into
+ * {@link #SUB_BUCKETS} buckets, so percentiles read from it are off by at most 1/8 of the value.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // enough for latencies of over a day
+    private static final int MAX_EXPONENT = 37;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(bucketOf(Long.MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+
+    /**
+     * This function records one execution
+     *
+     * @param nanos How long the execution took, in nanoseconds.
+     * @param success Whether the execution succeeded.
+     */
+    public void record(long nanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        buckets.incrementAndGet(bucketOf(micros));
+        count.increment();
+        totalTime.add(nanos);
+        maxTime.accumulate(nanos);
+        if (!success) {
+            errorCount.increment();
+        }
+    }
+
+    /**
+     * This function returns the number of recorded executions
+     *
+     * @return Long - number of executions
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * This function returns the number of recorded executions that failed
+     *
+     * @return Long - number of failed executions
+     */
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * This function returns the time all recorded executions took together
+     *
+     * @return Long - total time in nanoseconds
+     */
+    public long getTotalTime() {
+        return totalTime.sum();
+    }
+
+    /**
+     * This function returns the time the slowest recorded execution took
+     *
+     * @return Long - maximum time in nanoseconds
+     */
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    /**
+     * This function returns the latency the given share of executions did not exceed. Executions recorded while it
+     * runs may or may not be counted.
+     *
+     * @param percentile The share of executions, between 0 and 1.
+     * @return Long - the latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(TimeUnit.MICROSECONDS.toNanos(upperBoundOf(i)), getMaxTime());
+            }
+        }
+        return getMaxTime();
+    }
+
+    /**
+     * This function resets all recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        errorCount.reset();
+        totalTime.reset();
+        maxTime.reset();
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        int sub = exponent == MAX_EXPONENT && micros >>> MAX_EXPONENT > 1 ? SUB_BUCKETS - 1
+                : (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+
+}
@@ -0,0 +1,42 @@
+package cz.jesuschrist69.buildsystem.mysql.stats;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable snapshot of statistics of one query shape. Times are in nanoseconds.
+ */
+@Getter
+@ToString
+public final class QueryShapeStats {
+
+    private final String shape;
+    private final long count;
+    private final long errorCount;
+    private final long totalTime;
+    private final long maxTime;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+
+    QueryShapeStats(@NotNull String shape, @NotNull LatencyHistogram histogram) {
+        this.shape = shape;
+        this.count = histogram.getCount();
+        this.errorCount = histogram.getErrorCount();
+        this.totalTime = histogram.getTotalTime();
+        this.maxTime = histogram.getMaxTime();
+        this.p50 = histogram.getPercentile(0.50);
+        this.p95 = histogram.getPercentile(0.95);
+        this.p99 = histogram.getPercentile(0.99);
+    }
+
+    /**
+     * Returns average time of one execution, in nanoseconds.
+     *
+     * @return Double - average time in nanoseconds
+     */
+    public double getAverageTime() {
+        return count == 0 ? 0.0 : (double) totalTime / count;
+    }
+}
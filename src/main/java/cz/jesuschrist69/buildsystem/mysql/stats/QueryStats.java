@@ -0,0 +1,122 @@
+package cz.jesuschrist69.buildsystem.mysql.stats;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Records latency of every statement by its shape, the statement text without values. Values are bound through ?
+ * placeholders, so the text is the shape already, only lists of placeholders are collapsed, so IN lists of any length
+ * share one shape. Statements slower than the threshold are logged.
+ */
+public final class QueryStats {
+
+    // statement texts whose histogram is looked up directly, statements beyond it are normalized on every execution
+    private static final int MAX_STATEMENTS = 1024;
+
+    private final Map<String, LatencyHistogram> byShape = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> byStatement = new ConcurrentHashMap<>();
+    private volatile Logger logger;
+    private volatile long slowThreshold = Long.MAX_VALUE;
+
+    /**
+     * This function logs every statement that takes longer than the threshold
+     *
+     * @param logger The logger to log slow statements to.
+     * @param thresholdMillis The threshold in milliseconds, 0 or less turns logging off.
+     */
+    public void setSlowQueryLog(@NotNull Logger logger, long thresholdMillis) {
+        this.logger = logger;
+        this.slowThreshold = thresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(thresholdMillis) : Long.MAX_VALUE;
+    }
+
+    /**
+     * This function records one execution of the statement
+     *
+     * @param statement The executed statement.
+     * @param nanos How long the execution took, in nanoseconds.
+     * @param success Whether the execution succeeded.
+     */
+    public void record(@NotNull String statement, long nanos, boolean success) {
+        LatencyHistogram histogram = byStatement.get(statement);
+        if (histogram == null) {
+            histogram = byShape.computeIfAbsent(normalize(statement), shape -> new LatencyHistogram());
+            if (byStatement.size() < MAX_STATEMENTS) {
+                byStatement.put(statement, histogram);
+            }
+        }
+        histogram.record(nanos, success);
+
+        if (nanos >= slowThreshold && logger != null) {
+            logger.warning(String.format("Slow query (%.1f ms) on thread %s: %s", nanos / 1e6,
+                    Thread.currentThread().getName(), normalize(statement)));
+        }
+    }
+
+    /**
+     * This function returns statistics of all shapes, the shape that took the most time in total first
+     *
+     * @return List<QueryShapeStats> - statistics of all shapes
+     */
+    public List<QueryShapeStats> getStats() {
+        List<QueryShapeStats> stats = new ArrayList<>(byShape.size());
+        for (Map.Entry<String, LatencyHistogram> entry : byShape.entrySet()) {
+            stats.add(new QueryShapeStats(entry.getKey(), entry.getValue()));
+        }
+        stats.sort(Comparator.comparingLong(QueryShapeStats::getTotalTime).reversed());
+        return stats;
+    }
+
+    /**
+     * This function resets statistics of all shapes
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : byShape.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * This function collapses lists of placeholders, like the values of IN, into a single placeholder. Rows of a
+     * multi-row insert are collapsed into a single row as well, so inserts of any number of rows share one shape.
+     *
+     * @param statement The statement text.
+     * @return String - the shape of the statement
+     */
+    static String normalize(@NotNull String statement) {
+        return collapse(collapse(statement, "?"), "(?...)");
+    }
+
+    /**
+     * This function replaces every comma separated run of the item with the item followed by three dots
+     *
+     * @param statement The statement text.
+     * @param item The repeated item.
+     * @return String - the statement with the runs collapsed
+     */
+    private static String collapse(@NotNull String statement, @NotNull String item) {
+        String separator = ", " + item;
+        int index = statement.indexOf(item + separator);
+        if (index < 0) {
+            return statement;
+        }
+        StringBuilder builder = new StringBuilder(statement.length());
+        int from = 0;
+        while (index >= 0) {
+            builder.append(statement, from, index).append(item).append("...");
+            from = index + item.length();
+            while (statement.startsWith(separator, from)) {
+                from += separator.length();
+            }
+            index = statement.indexOf(item + separator, from);
+        }
+        return builder.append(statement, from, statement.length()).toString();
+    }
+
+}